@@ -0,0 +1,57 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Bounded pool for fanning out dashboard lookups. When the queue is full new
+     * sections are rejected (and reported as unavailable) instead of piling up.
+     */
+    @Bean(name = "overviewExecutor")
+    public ThreadPoolTaskExecutor overviewExecutor(@Value("${customer.overview.pool-size:8}") int poolSize,
+                                                   @Value("${customer.overview.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("overview-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Sends WebSocket notification pushes once their transaction has committed. When the
+     * queue is full pushes are dropped and counted; the notifications stay readable over REST.
+     */
+    @Bean(name = "notificationExecutor")
+    public ThreadPoolTaskExecutor notificationExecutor(@Value("${notifications.delivery.pool-size:2}") int poolSize,
+                                                       @Value("${notifications.delivery.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("notification-push-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Stores streamed chatbot replies once they are complete, off the HTTP client's threads.
+     */
+    @Bean(name = "chatbotExecutor")
+    public ThreadPoolTaskExecutor chatbotExecutor(@Value("${chatbot.executor.pool-size:2}") int poolSize,
+                                                  @Value("${chatbot.executor.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("chatbot-");
+        executor.initialize();
+        return executor;
+    }
+}
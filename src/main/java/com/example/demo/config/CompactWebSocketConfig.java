@@ -0,0 +1,30 @@
+package com.example.demo.config;
+
+import com.example.demo.security.JwtTokenProvider;
+import com.example.demo.service.compact.CompactNotificationHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Plain WebSocket endpoints, next to the STOMP ones in WebSocketConfig. They live outside
+ * /ws because the SockJS endpoints there take every path below them.
+ */
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class CompactWebSocketConfig implements WebSocketConfigurer {
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final CompactNotificationHandler compactNotificationHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // Batched CBOR/JSON notification frames, no SockJS (connect with ?token=<jwt>)
+        registry.addHandler(compactNotificationHandler, "/ws-native/notifications")
+                .setAllowedOriginPatterns("*")
+                .setHandshakeHandler(new JwtHandshakeHandler(jwtTokenProvider));
+    }
+}
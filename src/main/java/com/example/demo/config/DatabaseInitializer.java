@@ -3,11 +3,14 @@ package com.example.demo.config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.annotation.Order;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
+
 @Component
 @Order(1) // Run FIRST, before TestDataInitializer
 public class DatabaseInitializer implements CommandLineRunner {
@@ -16,9 +19,21 @@ public class DatabaseInitializer implements CommandLineRunner {
     
     @Autowired
     private JdbcTemplate jdbcTemplate;
+
+    @Value("${scheduling.bays:1}")
+    private int bays;
     
     @Override
     public void run(String... args) {
+        migrateCustomerQuestions();
+        createAppointmentSlotIndex();
+        seedServiceCapacity();
+        seedSlotCapacity();
+        allowBroadcastNotifications();
+        dropServiceAvailableSlots();
+    }
+
+    private void migrateCustomerQuestions() {
         try {
             logger.info("=== Starting Database Schema Migration ===");
             
@@ -56,4 +71,96 @@ public class DatabaseInitializer implements CommandLineRunner {
             // Don't throw exception to prevent application startup failure
         }
     }
+
+    /**
+     * One active booking per date + time slot from the day the index is created on. Backs
+     * the in-process booking locks in AppointmentService so that two nodes cannot book the
+     * same slot either. Earlier dates are left out, as rows from before the index may hold
+     * double bookings that nobody needs to resolve any more.
+     */
+    private void createAppointmentSlotIndex() {
+        try {
+            if (bays > 1) {
+                // Several bays may serve the same time slot; the slot_capacity counters limit them instead
+                jdbcTemplate.execute("DROP INDEX IF EXISTS ux_appointments_active_slot");
+                return;
+            }
+            // Index predicates must be immutable, so the cut-off is today's date as a literal rather than CURRENT_DATE
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS ux_appointments_active_slot " +
+                                 "ON appointments ((CAST(appointment_date AS date)), time_slot) " +
+                                 "WHERE status <> 'CANCELLED' AND appointment_date >= DATE '" + LocalDate.now() + "'");
+            logger.info("Unique index on appointment date + time slot is in place");
+        } catch (Exception e) {
+            // Upcoming appointments already hold double bookings, which must be resolved by hand. Until
+            // then only the in-process booking locks guard slots, so two nodes could book the same one.
+            logger.error("Could not create unique appointment slot index, resolve upcoming double bookings: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fill the service_capacity calendar from existing future bookings. Dates that already
+     * have a row are left alone, so this only does work the first time it runs.
+     */
+    private void seedServiceCapacity() {
+        try {
+            int rows = jdbcTemplate.update(
+                    "INSERT INTO service_capacity (service_id, capacity_date, booked, max_slots) " +
+                    "SELECT s.id, CAST(a.appointment_date AS date), COUNT(*), s.max_daily_slots " +
+                    "FROM appointments a JOIN services s ON s.service_name = a.service_type " +
+                    "WHERE a.status <> 'CANCELLED' AND a.appointment_date >= CURRENT_DATE " +
+                    "GROUP BY s.id, CAST(a.appointment_date AS date), s.max_daily_slots " +
+                    "ON CONFLICT (service_id, capacity_date) DO NOTHING");
+            if (rows > 0) {
+                logger.info("Seeded service capacity calendar with " + rows + " service/date rows");
+            }
+        } catch (Exception e) {
+            logger.error("Could not seed service capacity calendar: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fill the slot_capacity counters from existing future bookings, so other nodes cannot
+     * book more appointments into a time slot than there are bays. Slots that already have
+     * a row are left alone.
+     */
+    private void seedSlotCapacity() {
+        try {
+            int rows = jdbcTemplate.update(
+                    "INSERT INTO slot_capacity (slot_date, time_slot, booked) " +
+                    "SELECT CAST(appointment_date AS date), time_slot, COUNT(*) " +
+                    "FROM appointments " +
+                    "WHERE status <> 'CANCELLED' AND appointment_date >= CURRENT_DATE AND time_slot IS NOT NULL " +
+                    "GROUP BY CAST(appointment_date AS date), time_slot " +
+                    "ON CONFLICT (slot_date, time_slot) DO NOTHING");
+            if (rows > 0) {
+                logger.info("Seeded slot capacity counters with " + rows + " date/time slot rows");
+            }
+        } catch (Exception e) {
+            logger.error("Could not seed slot capacity counters: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Broadcast notifications have no single recipient. Hibernate's update mode does not
+     * relax existing NOT NULL constraints, so older notifications tables are changed here.
+     */
+    private void allowBroadcastNotifications() {
+        try {
+            jdbcTemplate.execute("ALTER TABLE notifications ALTER COLUMN recipient_id DROP NOT NULL");
+        } catch (Exception e) {
+            logger.error("Could not allow broadcast notifications: " + e.getMessage());
+        }
+    }
+
+    /**
+     * services.available_slots was replaced by the service_capacity calendar. Hibernate's
+     * update mode does not drop columns, and the old NOT NULL column would reject inserts.
+     */
+    private void dropServiceAvailableSlots() {
+        try {
+            jdbcTemplate.execute("ALTER TABLE services DROP COLUMN IF EXISTS available_slots");
+        } catch (Exception e) {
+            logger.error("Could not drop services.available_slots: " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,52 @@
+package com.example.demo.config;
+
+import com.example.demo.security.JwtTokenProvider;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * Custom handshake handler to extract JWT token from query parameters
+ * and authenticate WebSocket connections
+ */
+class JwtHandshakeHandler extends DefaultHandshakeHandler {
+
+    private final JwtTokenProvider jwtTokenProvider;
+
+    public JwtHandshakeHandler(JwtTokenProvider jwtTokenProvider) {
+        this.jwtTokenProvider = jwtTokenProvider;
+    }
+
+    @Override
+    protected Principal determineUser(
+            ServerHttpRequest request,
+            WebSocketHandler wsHandler,
+            Map<String, Object> attributes) {
+
+        // Extract token from query parameter
+        if (request instanceof ServletServerHttpRequest) {
+            ServletServerHttpRequest servletRequest = (ServletServerHttpRequest) request;
+            String token = servletRequest.getServletRequest().getParameter("token");
+
+            // Validate token and create Principal
+            if (token != null && jwtTokenProvider.validateToken(token)) {
+                String username = jwtTokenProvider.getUsernameFromToken(token);
+                Long userId = jwtTokenProvider.getUserIdFromToken(token);
+
+                // Store userId in attributes for later use
+                attributes.put("userId", userId);
+                attributes.put("username", username);
+
+                // Return Principal with username
+                return () -> username;
+            }
+        }
+
+        // Return null if token is invalid or missing
+        return null;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.demo.config;
+
+import com.example.demo.dto.WebSocketNotificationMessage;
+import com.example.demo.model.NotificationType;
+import com.example.demo.service.AdminIdCache;
+import com.example.demo.service.NotificationReplayBuffer;
+import com.example.demo.service.NotificationService;
+import com.example.demo.service.relay.MessageRelay;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Replays missed notifications when a client resubscribes. A SUBSCRIBE frame carrying a
+ * last-sequence header gets the messages sent after that sequence, or a RESYNC_REQUIRED
+ * message whose sequence the client should continue from after reloading over REST. Only
+ * the subscribing session receives them, in the shape of the destination it subscribed
+ * to: one frame per message on a topic, one JSON array frame on its batch destination.
+ * A session is only replayed its own user topic, and the admin topic if it belongs to an
+ * admin; subscriptions to anything else are left to the broker alone.
+ *
+ * The replay goes out once the broker has registered the subscription, so no live message
+ * falls in between; a message can arrive both live and replayed, and clients skip sequences
+ * they have already seen.
+ */
+@Component
+@Slf4j
+public class NotificationReplayInterceptor implements ExecutorChannelInterceptor {
+
+    public static final String LAST_SEQUENCE_HEADER = "last-sequence";
+
+    private final NotificationReplayBuffer replayBuffer;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageChannel clientOutboundChannel;
+    private final AdminIdCache adminIdCache;
+
+    // Lazy because these beans are built from the WebSocket configuration that registers this interceptor
+    public NotificationReplayInterceptor(@Lazy NotificationReplayBuffer replayBuffer,
+                                         @Lazy SimpMessagingTemplate messagingTemplate,
+                                         @Lazy @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                                         @Lazy AdminIdCache adminIdCache) {
+        this.replayBuffer = replayBuffer;
+        this.messagingTemplate = messagingTemplate;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.adminIdCache = adminIdCache;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (ex != null || !(handler instanceof AbstractBrokerMessageHandler)) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String lastSequence = accessor.getFirstNativeHeader(LAST_SEQUENCE_HEADER);
+        String destination = accessor.getDestination();
+        if (accessor.getMessageType() != SimpMessageType.SUBSCRIBE || lastSequence == null || destination == null) {
+            return;
+        }
+        boolean batch = destination.endsWith(MessageRelay.BATCH_SUFFIX);
+        String topic = batch ? destination.substring(0, destination.length() - MessageRelay.BATCH_SUFFIX.length()) : destination;
+        if (!replayBuffer.handles(topic) || !mayReplay(accessor, topic)) {
+            return;
+        }
+
+        long sequence;
+        try {
+            sequence = Long.parseLong(lastSequence.trim());
+        } catch (NumberFormatException e) {
+            return;
+        }
+
+        Optional<List<Object>> missed = replayBuffer.since(topic, sequence);
+        if (missed.isPresent() && missed.get().isEmpty()) {
+            return;
+        }
+        List<Object> messages = missed.isPresent() ? missed.get() : List.of(resyncRequired(topic));
+        if (batch) {
+            reply(accessor, messages);
+        } else {
+            messages.forEach(missedMessage -> reply(accessor, missedMessage));
+        }
+    }
+
+    private boolean mayReplay(SimpMessageHeaderAccessor accessor, String topic) {
+        // Set by the JWT handshake handler when the token is valid; anonymous sessions get no replay
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes == null || !(attributes.get("userId") instanceof Long userId)) {
+            return false;
+        }
+        if (topic.equals(NotificationService.userTopic(userId))) {
+            return true;
+        }
+        return topic.equals(NotificationService.ADMIN_TOPIC) && adminIdCache.isAdmin(userId);
+    }
+
+    private void reply(SimpMessageHeaderAccessor accessor, Object payload) {
+        String destination = accessor.getDestination();
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(accessor.getSessionId());
+        headers.setSubscriptionId(accessor.getSubscriptionId());
+        headers.setDestination(destination);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        Message<?> reply = messagingTemplate.getMessageConverter().toMessage(payload, headers.getMessageHeaders());
+        if (reply == null || !clientOutboundChannel.send(reply)) {
+            log.warn("Could not replay notifications for {} to session {}", destination, accessor.getSessionId());
+        }
+    }
+
+    private WebSocketNotificationMessage resyncRequired(String destination) {
+        return WebSocketNotificationMessage.builder()
+                .type(NotificationType.RESYNC_REQUIRED)
+                .sequence(replayBuffer.latest(destination))
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.config;
 
 import com.example.demo.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -63,16 +64,22 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Streamed responses finish on an async dispatch; the request was authorized when it started
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
 
                 .requestMatchers("/ws/**").permitAll()  // Allow WebSocket endpoints
+                .requestMatchers("/ws-native/**").permitAll()  // Plain WebSocket endpoints, token checked on connect
                     .requestMatchers("/api/notifications/**").permitAll()
 
                 .requestMatchers("/api/customer/services").permitAll()  // Public access for booking
+                .requestMatchers("/api/customer/services/*/availability").permitAll()  // Public access for booking
                 .requestMatchers("/api/customer/faqs/**").permitAll()  // Public access for FAQs
                 .requestMatchers("/api/customer/questions/**").permitAll()  // Public access for submitting questions
                 .requestMatchers("/api/customer/my-questions/**").permitAll()  // Public access for viewing answered questions
                 .requestMatchers("/api/customer/appointments/booked-slots").permitAll()  // Public access for checking booked slots
+                .requestMatchers("/api/customer/appointments/blocked-slots").permitAll()  // Public access for checking slots by service duration
+                .requestMatchers("/api/customer/appointments/next-available").permitAll()  // Public access for finding free time
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 .requestMatchers("/api/employee/**").hasRole("EMPLOYEE")
                 .requestMatchers("/api/customer/**").hasRole("CUSTOMER")
@@ -3,17 +3,11 @@ package com.example.demo.config;
 import com.example.demo.security.JwtTokenProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.server.ServerHttpRequest;
-import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
-import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
-
-import java.security.Principal;
-import java.util.Map;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -22,12 +16,21 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
 
+    @Autowired
+    private NotificationReplayInterceptor notificationReplayInterceptor;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic");
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Replays missed notifications to clients that resubscribe with a last-sequence header
+        registration.interceptors(notificationReplayInterceptor);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Project updates endpoint
@@ -48,46 +51,4 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setHandshakeHandler(new JwtHandshakeHandler(jwtTokenProvider))
                 .withSockJS();
     }
-
-    /**
-     * Custom handshake handler to extract JWT token from query parameters
-     * and authenticate WebSocket connections
-     */
-    private static class JwtHandshakeHandler extends DefaultHandshakeHandler {
-
-        private final JwtTokenProvider jwtTokenProvider;
-
-        public JwtHandshakeHandler(JwtTokenProvider jwtTokenProvider) {
-            this.jwtTokenProvider = jwtTokenProvider;
-        }
-
-        @Override
-        protected Principal determineUser(
-                ServerHttpRequest request,
-                WebSocketHandler wsHandler,
-                Map<String, Object> attributes) {
-
-            // Extract token from query parameter
-            if (request instanceof ServletServerHttpRequest) {
-                ServletServerHttpRequest servletRequest = (ServletServerHttpRequest) request;
-                String token = servletRequest.getServletRequest().getParameter("token");
-
-                // Validate token and create Principal
-                if (token != null && jwtTokenProvider.validateToken(token)) {
-                    String username = jwtTokenProvider.getUsernameFromToken(token);
-                    Long userId = jwtTokenProvider.getUserIdFromToken(token);
-
-                    // Store userId in attributes for later use
-                    attributes.put("userId", userId);
-                    attributes.put("username", username);
-
-                    // Return Principal with username
-                    return () -> username;
-                }
-            }
-
-            // Return null if token is invalid or missing
-            return null;
-        }
-    }
-}
\ No newline at end of file
+}
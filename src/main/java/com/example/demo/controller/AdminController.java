@@ -2,23 +2,36 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.ApiResponse;
 import com.example.demo.dto.AssignedServiceDTO;
+import com.example.demo.dto.ChatbotCacheStatsResponse;
+import com.example.demo.dto.EmployeeLoadResponse;
 import com.example.demo.dto.EmployeeRequest;
 import com.example.demo.dto.ServiceRequest;
 import com.example.demo.dto.ServiceResponse;
 import com.example.demo.dto.UserResponse;
 import com.example.demo.dto.AppointmentAdminResponse;
+import com.example.demo.dto.AppointmentPageResponse;
+import com.example.demo.dto.AppointmentStatisticsResponse;
+import com.example.demo.dto.BulkAppointmentRequest;
+import com.example.demo.dto.BulkAppointmentResponse;
+import com.example.demo.dto.NotificationDeliveryStatsResponse;
 import com.example.demo.model.Appointment;
+import com.example.demo.model.AppointmentStatus;
 import com.example.demo.service.AdminService;
 import com.example.demo.service.AppointmentService;
 import com.example.demo.service.EmployeeServiceService;
+import com.example.demo.service.NotificationDelivery;
 import com.example.demo.service.ServiceManagementService;
+import com.example.demo.service.chatbot.ChatResponseCache;
+import com.example.demo.service.events.AppointmentStatisticsConsumer;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -31,6 +44,9 @@ public class AdminController {
     private final ServiceManagementService serviceManagementService;
     private final AppointmentService appointmentService;
     private final EmployeeServiceService employeeServiceService;
+    private final AppointmentStatisticsConsumer appointmentStatistics;
+    private final NotificationDelivery notificationDelivery;
+    private final ChatResponseCache chatResponseCache;
 
     @PostMapping("/employees")
     public ResponseEntity<ApiResponse> addEmployee(@Valid @RequestBody EmployeeRequest request) {
@@ -44,6 +60,13 @@ public class AdminController {
         return ResponseEntity.ok(employees);
     }
 
+    // Active appointment load and skills per employee, as used by auto-assignment
+    @GetMapping("/employees/load")
+    public ResponseEntity<List<EmployeeLoadResponse>> getEmployeeLoads() {
+        List<EmployeeLoadResponse> loads = employeeServiceService.getEmployeeLoads();
+        return ResponseEntity.ok(loads);
+    }
+
     @GetMapping("/customers")
     public ResponseEntity<List<UserResponse>> getAllCustomers() {
         List<UserResponse> customers = adminService.getAllCustomers();
@@ -144,6 +167,50 @@ public class AdminController {
         return ResponseEntity.ok(appointments);
     }
 
+    // Paged appointment list - pass nextCursor from the previous response as cursor
+    @GetMapping("/appointments/paged")
+    public ResponseEntity<AppointmentPageResponse> getAppointmentsPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String serviceType,
+            @RequestParam(required = false) Long employeeId) {
+        AppointmentPageResponse page = appointmentService.getAppointmentsPage(
+                cursor, limit, status, from, to, serviceType, employeeId);
+        return ResponseEntity.ok(page);
+    }
+
+    // Appointment counts per status and event type, maintained from the appointment event log
+    @GetMapping("/appointments/stats")
+    public ResponseEntity<AppointmentStatisticsResponse> getAppointmentStatistics() {
+        return ResponseEntity.ok(appointmentStatistics.getStatistics());
+    }
+
+    // Counters of the after-commit WebSocket notification pipeline
+    @GetMapping("/notifications/delivery-stats")
+    public ResponseEntity<NotificationDeliveryStatsResponse> getNotificationDeliveryStats() {
+        return ResponseEntity.ok(notificationDelivery.getStats());
+    }
+
+    // Hit rate and size of the chatbot reply cache
+    @GetMapping("/chatbot/cache")
+    public ResponseEntity<ChatbotCacheStatsResponse> getChatbotCacheStats() {
+        return ResponseEntity.ok(chatResponseCache.getStats());
+    }
+
+    // Drop every cached chatbot reply, e.g. after hours or prices changed
+    @DeleteMapping("/chatbot/cache")
+    public ResponseEntity<ApiResponse> purgeChatbotCache() {
+        int purged = chatResponseCache.purge();
+        return ResponseEntity.ok(ApiResponse.builder()
+                .success(true)
+                .message("Purged " + purged + " cached chatbot replies")
+                .data(purged)
+                .build());
+    }
+
     @PutMapping("/appointments/{id}/approve")
     public ResponseEntity<Appointment> approveAppointment(@PathVariable Long id) {
         Appointment appointment = appointmentService.approveAppointment(id);
@@ -164,6 +231,20 @@ public class AdminController {
         return ResponseEntity.ok(appointment);
     }
 
+    // Assign the least-loaded employee who can do the appointment's service
+    @PutMapping("/appointments/{id}/auto-assign")
+    public ResponseEntity<Appointment> autoAssignAppointment(@PathVariable Long id) {
+        Appointment appointment = appointmentService.autoAssignAppointment(id);
+        return ResponseEntity.ok(appointment);
+    }
+
+    // Apply a list of approve/reject/assign transitions in one call
+    @PostMapping("/appointments/bulk")
+    public ResponseEntity<BulkAppointmentResponse> applyBulkTransitions(@Valid @RequestBody BulkAppointmentRequest request) {
+        BulkAppointmentResponse response = appointmentService.applyBulkTransitions(request);
+        return ResponseEntity.ok(response);
+    }
+
     // Employee Service Assignment Endpoints
 
     // Assign service to employee
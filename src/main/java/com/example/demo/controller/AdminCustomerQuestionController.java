@@ -70,6 +70,28 @@ public class AdminCustomerQuestionController {
         }
     }
 
+    // Let the chatbot use the answer for other customers
+    @PutMapping("/{id}/publish")
+    public ResponseEntity<CustomerQuestion> publish(@PathVariable Long id) {
+        try {
+            CustomerQuestion question = customerQuestionService.setPublished(id, true);
+            return ResponseEntity.ok(question);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Keep the answer between the admin and the asker again
+    @PutMapping("/{id}/unpublish")
+    public ResponseEntity<CustomerQuestion> unpublish(@PathVariable Long id) {
+        try {
+            CustomerQuestion question = customerQuestionService.setPublished(id, false);
+            return ResponseEntity.ok(question);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     // Mark question as unresolved
     @PutMapping("/{id}/unresolve")
     public ResponseEntity<CustomerQuestion> markAsUnresolved(@PathVariable Long id) {
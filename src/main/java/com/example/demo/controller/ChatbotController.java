@@ -7,9 +7,11 @@ import com.example.demo.dto.ChatResponse;
 import com.example.demo.service.ChatbotService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -41,6 +43,20 @@ public class ChatbotController {
         }
     }
     
+    /**
+     * Send a message and receive the reply as server-sent events: "session", then "token"
+     * events as the text is written, and a final "done" (ChatResponse) or "error" event
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<SseEmitter> chatStream(@RequestBody ChatRequest request) {
+        log.info("Received streamed chat request: {}", request.getMessage());
+        // Proxies such as nginx must not buffer the stream
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(chatbotService.streamMessage(request));
+    }
+
     /**
      * Get chat history for the current user
      */
@@ -1,12 +1,16 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.CustomerOverviewResponse;
 import com.example.demo.dto.ProfileUpdateRequest;
+import com.example.demo.dto.ScheduleWindowResponse;
+import com.example.demo.dto.ServiceAvailabilityResponse;
 import com.example.demo.dto.ServiceResponse;
 import com.example.demo.dto.UserResponse;
 import com.example.demo.model.Appointment;
 import com.example.demo.dto.ApiResponse;
 import com.example.demo.dto.AppointmentDTO;
 import com.example.demo.service.AppointmentService;
+import com.example.demo.service.CustomerOverviewService;
 import com.example.demo.service.ServiceManagementService;
 import com.example.demo.service.UserService;
 import jakarta.validation.Valid;
@@ -18,6 +22,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -28,6 +33,7 @@ public class CustomerController {
     private final UserService userService;
     private final AppointmentService appointmentService;
     private final ServiceManagementService serviceManagementService;
+    private final CustomerOverviewService customerOverviewService;
 
     @GetMapping("/profile")
     @PreAuthorize("hasRole('CUSTOMER')")
@@ -54,6 +60,15 @@ public class CustomerController {
         return ResponseEntity.ok("Welcome to Customer Dashboard");
     }
 
+    // Appointments, unread count, projects and modification requests in one round trip
+    @GetMapping("/overview")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public ResponseEntity<CustomerOverviewResponse> getOverview(Authentication authentication) {
+        String username = authentication.getName();
+        CustomerOverviewResponse overview = customerOverviewService.getOverview(username);
+        return ResponseEntity.ok(overview);
+    }
+
     // Get all active services (public access for booking - configured in SecurityConfig)
     @GetMapping("/services")
     public ResponseEntity<List<ServiceResponse>> getActiveServices() {
@@ -61,6 +76,17 @@ public class CustomerController {
         return ResponseEntity.ok(services);
     }
 
+    // Booked and remaining slots of a service per date, up to 60 days ahead (public access for booking)
+    @GetMapping("/services/{serviceId}/availability")
+    public ResponseEntity<List<ServiceAvailabilityResponse>> getServiceAvailability(
+            @PathVariable Long serviceId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(defaultValue = "14") int days) {
+        List<ServiceAvailabilityResponse> availability = serviceManagementService.getServiceAvailability(
+                serviceId, from != null ? from : LocalDate.now(), Math.max(1, Math.min(days, 60)));
+        return ResponseEntity.ok(availability);
+    }
+
     // Create an appointment
     @PostMapping("/appointments")
     @PreAuthorize("hasRole('CUSTOMER')")
@@ -100,12 +126,32 @@ public class CustomerController {
         return ResponseEntity.ok(ApiResponse.success("Appointment cancelled successfully"));
     }
 
-    // Get booked time slots for a specific date (PUBLIC - no authentication required)
+    // Earliest free time for a service, taking its duration into account (PUBLIC - no authentication required)
+    @GetMapping("/appointments/next-available")
+    public ResponseEntity<ScheduleWindowResponse> getNextAvailableWindow(
+            @RequestParam(required = false) String serviceType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from) {
+        ScheduleWindowResponse window = appointmentService.findNextAvailableWindow(
+                serviceType, from != null ? from : LocalDateTime.now());
+        return ResponseEntity.ok(window);
+    }
+
+    // Get booked time slots for a specific date, as they were submitted (PUBLIC - no authentication required)
     @GetMapping("/appointments/booked-slots")
     public ResponseEntity<List<String>> getBookedTimeSlots(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         List<String> bookedSlots = appointmentService.getBookedTimeSlots(date);
         return ResponseEntity.ok(bookedSlots);
     }
+
+    // Start times on the scheduling.slot-minutes grid, labelled like "9:00 AM", at which no bay is
+    // free for the service's whole duration (PUBLIC - no authentication required)
+    @GetMapping("/appointments/blocked-slots")
+    public ResponseEntity<List<String>> getBlockedTimeSlots(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String serviceType) {
+        List<String> blockedSlots = appointmentService.getBlockedTimeSlots(date, serviceType);
+        return ResponseEntity.ok(blockedSlots);
+    }
 }
 
@@ -3,11 +3,8 @@ package com.example.demo.controller;
 import com.example.demo.dto.AppointmentStatusUpdateDTO;
 import com.example.demo.model.Appointment;
 import com.example.demo.model.AppointmentStatus;
-import com.example.demo.model.NotificationType;
-import com.example.demo.model.User;
 import com.example.demo.repository.AppointmentRepository;
-import com.example.demo.repository.UserRepository;
-import com.example.demo.service.NotificationService;
+import com.example.demo.service.AppointmentService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -26,8 +23,7 @@ import java.util.Map;
 public class EmployeeAppointmentController {
 
     private final AppointmentRepository appointmentRepository;
-    private final NotificationService notificationService;
-    private final UserRepository userRepository;
+    private final AppointmentService appointmentService;
 
     /**
      * Update appointment status by employee
@@ -41,23 +37,8 @@ public class EmployeeAppointmentController {
             @RequestBody AppointmentStatusUpdateDTO updateDTO) {
 
         try {
-            // Find appointment
-            Appointment appointment = appointmentRepository.findById(id)
-                    .orElseThrow(() -> new RuntimeException("Appointment not found with id: " + id));
-
-            AppointmentStatus oldStatus = appointment.getStatus();
-
-            // Update status using existing enum
-            if (updateDTO.getStatus() != null) {
-                appointment.setStatus(updateDTO.getStatus());
-            }
-
-            // Save changes to database - Customer will see this when they query their appointments
-            // updatedAt timestamp will be automatically set by @UpdateTimestamp
-            Appointment updated = appointmentRepository.save(appointment);
-
-            // Send notifications based on status change
-            sendStatusChangeNotifications(updated, oldStatus);
+            // The status, capacity and event commit together - Customer will see this when they query their appointments
+            Appointment updated = appointmentService.updateStatusByEmployee(id, updateDTO.getStatus());
 
             // Return success response
             Map<String, Object> response = new HashMap<>();
@@ -87,23 +68,14 @@ public class EmployeeAppointmentController {
             @RequestBody Map<String, String> updates) {
 
         try {
-            Appointment appointment = appointmentRepository.findById(id)
-                    .orElseThrow(() -> new RuntimeException("Appointment not found with id: " + id));
-
-            AppointmentStatus oldStatus = appointment.getStatus();
-
             // Update status if provided
+            AppointmentStatus status = null;
             if (updates.containsKey("status")) {
                 String statusStr = updates.get("status");
-                AppointmentStatus status = AppointmentStatus.valueOf(statusStr.toUpperCase());
-                appointment.setStatus(status);
+                status = AppointmentStatus.valueOf(statusStr.toUpperCase());
             }
 
-            // Save to database - updatedAt will be automatically set
-            Appointment updated = appointmentRepository.save(appointment);
-
-            // Send notifications based on status change
-            sendStatusChangeNotifications(updated, oldStatus);
+            Appointment updated = appointmentService.updateStatusByEmployee(id, status);
 
             // Return success response
             Map<String, Object> response = new HashMap<>();
@@ -144,97 +116,4 @@ public class EmployeeAppointmentController {
             return ResponseEntity.badRequest().body(error);
         }
     }
-
-    /**
-     * Helper method to send notifications based on status changes
-     */
-    private void sendStatusChangeNotifications(Appointment appointment, AppointmentStatus oldStatus) {
-        User customer = appointment.getUser();
-        AppointmentStatus newStatus = appointment.getStatus();
-
-        // Only send notification if status actually changed
-        if (oldStatus == newStatus) {
-            return;
-        }
-
-        String vehicleInfo = appointment.getVehicleBrand() + " " + appointment.getModel();
-
-        switch (newStatus) {
-            case IN_SERVICE:
-                notificationService.notifyCustomer(
-                        customer.getId(),
-                        appointment.getId(),
-                        "Service Started",
-                        "Your " + vehicleInfo + " service has been started.",
-                        NotificationType.STATUS_CHANGED_IN_SERVICE
-                );
-                notificationService.notifyAdmins(
-                        appointment.getId(),
-                        "Service Started",
-                        "Service started for " + vehicleInfo + " (Customer: " + customer.getFirstName() + " " + customer.getLastName() + ")",
-                        NotificationType.STATUS_CHANGED_IN_SERVICE
-                );
-                break;
-
-            case READY:
-                notificationService.notifyCustomer(
-                        customer.getId(),
-                        appointment.getId(),
-                        "Vehicle Ready for Pickup",
-                        "Good news! Your " + vehicleInfo + " is ready for pickup.",
-                        NotificationType.STATUS_CHANGED_READY
-                );
-                notificationService.notifyAdmins(
-                        appointment.getId(),
-                        "Service Ready",
-                        vehicleInfo + " is ready for pickup (Customer: " + customer.getFirstName() + " " + customer.getLastName() + ")",
-                        NotificationType.STATUS_CHANGED_READY
-                );
-                break;
-
-            case COMPLETED:
-                notificationService.notifyCustomer(
-                        customer.getId(),
-                        appointment.getId(),
-                        "Service Completed",
-                        "Your " + vehicleInfo + " service has been completed successfully. Thank you for choosing us!",
-                        NotificationType.STATUS_CHANGED_COMPLETED
-                );
-                notificationService.notifyAdmins(
-                        appointment.getId(),
-                        "Service Completed",
-                        "Service completed for " + vehicleInfo + " (Customer: " + customer.getFirstName() + " " + customer.getLastName() + ")",
-                        NotificationType.STATUS_CHANGED_COMPLETED
-                );
-                break;
-
-            case CANCELLED:
-                notificationService.notifyCustomer(
-                        customer.getId(),
-                        appointment.getId(),
-                        "Appointment Cancelled",
-                        "Your appointment for " + vehicleInfo + " has been cancelled.",
-                        NotificationType.APPOINTMENT_CANCELLED
-                );
-                notificationService.notifyAdmins(
-                        appointment.getId(),
-                        "Appointment Cancelled",
-                        "Appointment cancelled for " + vehicleInfo,
-                        NotificationType.APPOINTMENT_CANCELLED
-                );
-                break;
-
-            default:
-                // For other status changes, send a general notification
-                notificationService.notifyCustomer(
-                        customer.getId(),
-                        appointment.getId(),
-                        "Appointment Status Updated",
-                        "Your appointment for " + vehicleInfo + " status has been updated to " + newStatus,
-                        NotificationType.GENERAL
-                );
-                break;
-        }
-    }
 }
-
@@ -1,17 +1,27 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.ApiResponse;
+import com.example.demo.dto.BulkNotificationRequest;
 import com.example.demo.dto.NotificationDTO;
+import com.example.demo.dto.NotificationPageResponse;
+import com.example.demo.model.NotificationType;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.JwtTokenProvider;
+import com.example.demo.service.AdminIdCache;
 import com.example.demo.service.NotificationService;
+import com.example.demo.service.stream.NotificationStreamPublisher;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -26,8 +36,17 @@ public class NotificationController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private NotificationStreamPublisher notificationStreamPublisher;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private AdminIdCache adminIdCache;
+
     /**
-     * Get all notifications for logged-in user
+     * Get the newest notifications for logged-in user (up to 100; use /feed for older ones)
      */
     @GetMapping
     public ResponseEntity<ApiResponse<List<NotificationDTO>>> getAllNotifications() {
@@ -42,7 +61,7 @@ public class NotificationController {
     }
 
     /**
-     * Get unread notifications for logged-in user
+     * Get the newest unread notifications for logged-in user (up to 100)
      */
     @GetMapping("/unread")
     public ResponseEntity<ApiResponse<List<NotificationDTO>>> getUnreadNotifications() {
@@ -56,6 +75,69 @@ public class NotificationController {
                 .build());
     }
 
+    /**
+     * Paged notification feed, newest first - pass nextCursor from the previous response as before
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<ApiResponse<NotificationPageResponse>> getNotificationFeed(
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) NotificationType type,
+            @RequestParam(defaultValue = "false") boolean unreadOnly) {
+        Long userId = getAuthenticatedUserId();
+        NotificationPageResponse page = notificationService.getNotificationPage(userId, before, limit, type, unreadOnly);
+
+        return ResponseEntity.ok(ApiResponse.<NotificationPageResponse>builder()
+                .success(true)
+                .message("Notifications retrieved successfully")
+                .data(page)
+                .build());
+    }
+
+    /**
+     * Live notifications as Server-Sent Events. EventSource cannot set headers, so the JWT
+     * may also be passed as ?token=. Reconnects send Last-Event-ID to get what was missed.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotifications(
+            @RequestParam(required = false) String token,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Long userId;
+        if (token != null) {
+            if (!jwtTokenProvider.validateToken(token)) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            userId = jwtTokenProvider.getUserIdFromToken(token);
+        } else {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication == null || !authentication.isAuthenticated()
+                    || "anonymousUser".equals(authentication.getPrincipal())) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            userId = getAuthenticatedUserId();
+        }
+
+        List<String> destinations = new ArrayList<>();
+        destinations.add(NotificationService.userTopic(userId));
+        if (adminIdCache.isAdmin(userId)) {
+            destinations.add(NotificationService.ADMIN_TOPIC);
+        }
+
+        Long lastSequence = null;
+        if (lastEventId != null) {
+            try {
+                lastSequence = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                // Not one of our ids, stream live messages only
+            }
+        }
+
+        // Proxies such as nginx must not buffer the stream
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(notificationStreamPublisher.open(destinations, lastSequence));
+    }
+
     /**
      * Get unread notification count
      */
@@ -99,6 +181,51 @@ public class NotificationController {
                 .build());
     }
 
+    /**
+     * Mark several notifications as read
+     */
+    @PutMapping("/read")
+    public ResponseEntity<ApiResponse<Integer>> markSelectedAsRead(@Valid @RequestBody BulkNotificationRequest request) {
+        Long userId = getAuthenticatedUserId();
+        int marked = notificationService.markAsRead(request.getNotificationIds(), userId);
+
+        return ResponseEntity.ok(ApiResponse.<Integer>builder()
+                .success(true)
+                .message("Notifications marked as read")
+                .data(marked)
+                .build());
+    }
+
+    /**
+     * Mark a notification and every older one as read
+     */
+    @PutMapping("/read-up-to/{notificationId}")
+    public ResponseEntity<ApiResponse<Integer>> markReadUpTo(@PathVariable Long notificationId) {
+        Long userId = getAuthenticatedUserId();
+        int marked = notificationService.markReadUpTo(notificationId, userId);
+
+        return ResponseEntity.ok(ApiResponse.<Integer>builder()
+                .success(true)
+                .message("Notifications marked as read")
+                .data(marked)
+                .build());
+    }
+
+    /**
+     * Delete several notifications
+     */
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<ApiResponse<Integer>> deleteNotifications(@Valid @RequestBody BulkNotificationRequest request) {
+        Long userId = getAuthenticatedUserId();
+        int deleted = notificationService.deleteNotifications(request.getNotificationIds(), userId);
+
+        return ResponseEntity.ok(ApiResponse.<Integer>builder()
+                .success(true)
+                .message("Notifications deleted successfully")
+                .data(deleted)
+                .build());
+    }
+
     /**
      * Delete a specific notification
      */
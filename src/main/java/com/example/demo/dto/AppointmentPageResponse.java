@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentPageResponse {
+    private List<AppointmentAdminResponse> items;
+
+    // Pass back as "cursor" to fetch the next page; null when there are no more rows
+    private Long nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.AppointmentStatus;
+import com.example.demo.model.events.AppointmentEventType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentStatisticsResponse {
+    // Appointments currently in each status (recounted from the database, moved by events)
+    // and events of each type seen since the node started
+    private Map<AppointmentStatus, Long> statusCounts;
+    private Map<AppointmentEventType, Long> eventCounts;
+
+    // Last event offset included in the counts
+    private long lastOffset;
+}
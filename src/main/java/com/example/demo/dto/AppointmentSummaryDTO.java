@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.AppointmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Compact appointment row for dashboards
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentSummaryDTO {
+    private Long id;
+    private String vehicleBrand;
+    private String model;
+    private String registerNumber;
+    private String serviceType;
+    private LocalDateTime appointmentDate;
+    private String timeSlot;
+    private AppointmentStatus status;
+    private Long assignedEmployeeId;
+}
@@ -0,0 +1,44 @@
+package com.example.demo.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAppointmentRequest {
+
+    @NotEmpty(message = "At least one transition is required")
+    @Size(max = 500, message = "At most 500 transitions per request")
+    private List<@Valid Item> items;
+
+    public enum Action {
+        APPROVE,    // PENDING -> CONFIRMED
+        REJECT,     // any -> CANCELLED
+        ASSIGN,     // assign employee, -> IN_SERVICE
+        AUTO_ASSIGN // assign the least-loaded qualified employee, -> IN_SERVICE
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        @NotNull(message = "Appointment ID is required")
+        private Long appointmentId;
+
+        @NotNull(message = "Action is required")
+        private Action action;
+
+        private Long employeeId;    // Required for ASSIGN
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.AppointmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAppointmentResponse {
+    private int succeeded;
+    private int failed;
+    private List<ItemResult> results;   // Same order as the request items
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private Long appointmentId;
+        private BulkAppointmentRequest.Action action;
+        private boolean success;
+        private String message;
+        private AppointmentStatus status;   // Status after the transition (or current status on failure)
+    }
+}
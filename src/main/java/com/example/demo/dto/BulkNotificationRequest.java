@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkNotificationRequest {
+
+    @NotEmpty(message = "At least one notification ID is required")
+    @Size(max = 1000, message = "At most 1000 notifications per request")
+    private List<@NotNull Long> notificationIds;
+}
@@ -0,0 +1,28 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatbotCacheStatsResponse {
+    private boolean enabled;
+    private int size;
+    private int maxEntries;
+
+    // Lookups answered from the cache and those that went to the model
+    private long hits;
+    private long misses;
+    private double hitRate;
+
+    // Entries dropped as least recently used, and entries found expired
+    private long evictions;
+    private long expirations;
+
+    // Tokens the cached replies cost when they were first generated, summed over all hits
+    private long tokensSaved;
+}
@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+import com.example.demo.dto.projects.ProjectResponse;
+import com.example.demo.model.projects.ModificationRequest;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Everything the customer dashboard needs on load, in one response
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerOverviewResponse {
+    private Long customerId;
+    private List<AppointmentSummaryDTO> appointments;
+    private Long unreadNotifications;
+    private List<ProjectResponse> projects;
+    private List<ModificationRequest> modificationRequests;
+
+    // Sections that failed or ran over their time budget (their fields are null)
+    private List<String> unavailableSections;
+}
@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeLoadResponse {
+    private Long employeeId;
+    private String employeeName;
+    private int activeAppointments;     // Assigned and not yet completed or cancelled
+    private Set<Long> serviceIds;       // Services the employee can be auto-assigned to
+}
@@ -1,6 +1,7 @@
 package com.example.demo.dto;
 
 import com.example.demo.model.NotificationType;
+import com.example.demo.model.Role;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,6 +19,7 @@ public class NotificationDTO {
     private String message;
     private NotificationType type;
     private Long recipientId;
+    private Role audience;
     private Long appointmentId;
     private Boolean isRead;
     private LocalDateTime createdAt;
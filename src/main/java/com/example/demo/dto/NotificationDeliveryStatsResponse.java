@@ -0,0 +1,39 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationDeliveryStatsResponse {
+    // Messages handed to the delivery queue after commit, and messages of rolled back transactions
+    private long accepted;
+    private long discarded;
+
+    // Messages pushed to clients and the batches they went out in (fewer batches = more coalescing)
+    private long delivered;
+    private long frames;
+
+    // Messages lost to a full per-destination queue or a full executor, and executor rejections
+    private long dropped;
+    private long rejected;
+
+    // Messages the broker refused
+    private long failed;
+
+    private int pendingDestinations;
+    private int executorQueueSize;
+
+    // Compact endpoint: connected sessions, frames sent to them and their encoded size
+    private int compactSessions;
+    private long compactFrames;
+    private long compactBytes;
+
+    // Event stream: open connections and events sent to them
+    private int streamConnections;
+    private long streamEvents;
+}
@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPageResponse {
+    private List<NotificationDTO> items;
+
+    // Pass back as "before" to fetch the next (older) page; null when there are no more rows
+    private Long nextCursor;
+    private boolean hasMore;
+}
@@ -1,5 +1,6 @@
 package com.example.demo.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,6 +23,14 @@ public class OpenRouterRequest {
 
     private Double temperature;
 
+    // Only set for streamed completions
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean stream;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("stream_options")
+    private StreamOptions streamOptions;
+
     @Data
     @Builder
     @NoArgsConstructor
@@ -30,5 +39,13 @@ public class OpenRouterRequest {
         private String role;
         private String content;
     }
-}
 
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StreamOptions {
+        // Ask for a final chunk carrying the token usage
+        @JsonProperty("include_usage")
+        private Boolean includeUsage;
+    }
+}
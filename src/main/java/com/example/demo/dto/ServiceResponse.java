@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class ServiceResponse {
 
     private Long id;
@@ -23,7 +23,7 @@ public class ServiceResponse {
     private String requiredSkills;
     private String priority;
     private Integer maxDailySlots;
-    private Integer availableSlots;
+    private Integer availableSlots; // Same as remainingSlots, for clients that read the old field
     private String serviceImage;
     private Boolean isActive;
     private String additionalNotes;
@@ -20,5 +20,8 @@ public class WebSocketNotificationMessage {
     private Long appointmentId;
     private Long recipientId;
     private LocalDateTime timestamp;
+    private Long unreadCount; // Recipient's unread count after this change, null when not cached
+    private Long unreadDelta; // Change to every recipient's unread count, for broadcasts whose recipients have different counts
+    private Long sequence; // Position for reconnect replay, see NotificationReplayBuffer
 }
 
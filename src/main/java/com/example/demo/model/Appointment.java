@@ -12,7 +12,11 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+        @Index(name = "idx_appointments_status", columnList = "status"),
+        @Index(name = "idx_appointments_date", columnList = "appointmentDate"),
+        @Index(name = "idx_appointments_employee", columnList = "assigned_employee_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
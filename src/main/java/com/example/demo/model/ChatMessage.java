@@ -9,7 +9,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+        // Latest turns of a session for the chatbot context; ids grow with insertion order
+        @Index(name = "idx_chat_messages_user_session", columnList = "user_id, session_id, id DESC")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -36,6 +36,10 @@ public class CustomerQuestion {
     
     @Column(nullable = false)
     private Boolean isResolved = false;
+
+    // Answers are private to the asker until an admin publishes them to the chatbot
+    @Column(name = "is_published", columnDefinition = "boolean not null default false")
+    private Boolean isPublished = false;
     
     private LocalDateTime answeredAt;
     
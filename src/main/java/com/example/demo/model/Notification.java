@@ -10,7 +10,12 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        // Keyset feed pages: ids grow with creation time, so id DESC is newest first
+        @Index(name = "idx_notifications_recipient_feed", columnList = "recipientId, id DESC"),
+        @Index(name = "idx_notifications_recipient_unread", columnList = "recipientId, isRead, id DESC"),
+        @Index(name = "idx_notifications_audience_feed", columnList = "audience, id DESC")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,8 +36,10 @@ public class Notification {
     @Column(nullable = false)
     private NotificationType type;
 
-    @Column(nullable = false)
-    private Long recipientId; // User ID who will receive this notification
+    private Long recipientId; // User ID who will receive this notification, null for broadcasts
+
+    @Enumerated(EnumType.STRING)
+    private Role audience; // Set for broadcasts, which are stored once and read by every user of this role
 
     @Column(nullable = false)
     private Long appointmentId; // Related appointment ID
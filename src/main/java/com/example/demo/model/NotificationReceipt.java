@@ -0,0 +1,47 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Read state of one broadcast notification for one user. A missing row means unread;
+ * deleting a broadcast only hides it for that user.
+ */
+@Entity
+@Table(name = "notification_receipts")
+@IdClass(NotificationReceipt.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationReceipt {
+
+    @Id
+    @Column(name = "notification_id")
+    private Long notificationId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDateTime readAt;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Boolean hidden = false;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long notificationId;
+        private Long userId;
+    }
+}
@@ -8,6 +8,8 @@ public enum NotificationType {
     STATUS_CHANGED_IN_SERVICE,  // When status changes to IN_SERVICE
     STATUS_CHANGED_READY,       // When status changes to READY
     STATUS_CHANGED_COMPLETED,   // When status changes to COMPLETED
-    GENERAL                     // General notification
+    GENERAL,                    // General notification
+    UNREAD_COUNT,               // Unread badge update pushed over WebSocket, never stored
+    RESYNC_REQUIRED             // Missed messages are no longer buffered, client must reload over REST
 }
 
@@ -46,10 +46,6 @@ public class Service {
     @Column(nullable = false)
     private Integer maxDailySlots;
 
-    @Builder.Default
-    @Column(nullable = false)
-    private Integer availableSlots = 0; // Tracks remaining slots for today
-
     private String serviceImage;
 
     @Builder.Default
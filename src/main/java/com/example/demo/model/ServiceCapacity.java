@@ -0,0 +1,46 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Booking counter of one service on one date. A row is created by the first booking
+ * of that date and changed only through the atomic updates in ServiceCapacityRepository.
+ */
+@Entity
+@Table(name = "service_capacity")
+@IdClass(ServiceCapacity.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ServiceCapacity {
+
+    @Id
+    @Column(name = "service_id")
+    private Long serviceId;
+
+    @Id
+    @Column(name = "capacity_date")
+    private LocalDate capacityDate;
+
+    @Column(nullable = false)
+    private Integer booked;
+
+    @Column(name = "max_slots", nullable = false)
+    private Integer maxSlots;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long serviceId;
+        private LocalDate capacityDate;
+    }
+}
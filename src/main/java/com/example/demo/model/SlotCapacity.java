@@ -0,0 +1,44 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Number of active bookings that start in one time slot of one date, checked against the
+ * bay count. A row is created by the first booking of that slot and changed only through
+ * the atomic updates in SlotCapacityRepository.
+ */
+@Entity
+@Table(name = "slot_capacity")
+@IdClass(SlotCapacity.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SlotCapacity {
+
+    @Id
+    @Column(name = "slot_date")
+    private LocalDate slotDate;
+
+    @Id
+    @Column(name = "time_slot")
+    private String timeSlot;
+
+    @Column(nullable = false)
+    private Integer booked;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate slotDate;
+        private String timeSlot;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.model;
 
+import com.example.demo.service.AdminRoleListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -12,6 +13,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(AdminRoleListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,77 @@
+package com.example.demo.model.events;
+
+import com.example.demo.model.AppointmentStatus;
+import com.example.demo.model.Role;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only log of appointment state changes. Consumers read it in (transactionId, id)
+ * order, which is commit order: ids are taken at insert, so a transaction that commits
+ * late can make a lower id visible after higher ones. Events carry everything consumers
+ * need (names, vehicle) so they never have to load the appointment again.
+ */
+@Entity
+@Table(name = "appointment_events", indexes = {
+        @Index(name = "idx_appointment_events_appointment", columnList = "appointmentId"),
+        @Index(name = "idx_appointment_events_position", columnList = "tx_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AppointmentEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // PostgreSQL id of the transaction that wrote the event, filled in by the database
+    @Column(name = "tx_id", insertable = false, updatable = false,
+            columnDefinition = "bigint NOT NULL DEFAULT CAST(CAST(pg_current_xact_id() AS text) AS bigint)")
+    private Long transactionId;
+
+    @Column(nullable = false)
+    private Long appointmentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AppointmentEventType type;
+
+    @Enumerated(EnumType.STRING)
+    private AppointmentStatus oldStatus;   // Null for CREATED
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AppointmentStatus newStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Role actor;                    // Who made the change
+
+    @Column(nullable = false)
+    private Long customerId;
+
+    private String customerName;
+
+    private Long employeeId;
+
+    private String employeeName;
+
+    private String vehicle;                // Brand + model
+
+    private String registerNumber;
+
+    @Column(length = 36)
+    private String correlationId;          // Shared by the events of one bulk operation
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,12 @@
+package com.example.demo.model.events;
+
+public enum AppointmentEventType {
+    CREATED,            // Customer booked an appointment
+    CONFIRMED,          // Status changed to CONFIRMED
+    ASSIGNED,           // Admin assigned an employee (status becomes IN_SERVICE)
+    IN_SERVICE,         // Status changed to IN_SERVICE
+    READY,              // Status changed to READY
+    COMPLETED,          // Status changed to COMPLETED
+    CANCELLED,          // Status changed to CANCELLED
+    STATUS_CHANGED      // Any other transition (e.g. back to PENDING)
+}
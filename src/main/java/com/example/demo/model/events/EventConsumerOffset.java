@@ -0,0 +1,32 @@
+package com.example.demo.model.events;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Last appointment event a durable consumer has processed, as its position in the log
+ * (writing transaction, event id). Shared by all nodes, so a consumer such as
+ * notifications runs once per event across the cluster.
+ */
+@Entity
+@Table(name = "event_consumer_offsets")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventConsumerOffset {
+
+    @Id
+    @Column(length = 100)
+    private String consumerName;
+
+    @Column(nullable = false)
+    private Long lastOffset;
+
+    // Null for offsets stored before events carried their transaction
+    private Long lastTransactionId;
+}
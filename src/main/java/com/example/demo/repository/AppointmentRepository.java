@@ -1,12 +1,16 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.AppointmentAdminResponse;
+import com.example.demo.dto.AppointmentSummaryDTO;
 import com.example.demo.model.Appointment;
+import com.example.demo.model.AppointmentStatus;
 import com.example.demo.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,15 +22,55 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     // Find appointments assigned to a specific employee
     List<Appointment> findByAssignedEmployeeId(Long employeeId);
 
-    // Count appointments for a specific service on a given date (excluding cancelled/rejected)
-    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.serviceType = :serviceType " +
-           "AND CAST(a.appointmentDate AS date) = :date " +
-           "AND a.status NOT IN ('CANCELLED', 'REJECTED')")
-    Long countAppointmentsByServiceAndDate(@Param("serviceType") String serviceType, 
-                                           @Param("date") LocalDate date);
-
-    // Get all booked time slots for a specific date (excluding cancelled/rejected)
-    @Query("SELECT a.timeSlot FROM Appointment a WHERE CAST(a.appointmentDate AS date) = :date " +
-           "AND a.status NOT IN ('CANCELLED', 'REJECTED')")
-    List<String> findBookedTimeSlotsByDate(@Param("date") LocalDate date);
+    // Active (not completed or cancelled) assigned appointments per employee, as [employeeId, count] rows
+    @Query("SELECT a.assignedEmployeeId, COUNT(a) FROM Appointment a WHERE a.assignedEmployeeId IS NOT NULL " +
+           "AND a.status NOT IN ('COMPLETED', 'CANCELLED') GROUP BY a.assignedEmployeeId")
+    List<Object[]> countActiveLoadByEmployee();
+
+    // [id, appointmentDate, timeSlot, serviceType] of every booking in [start, end), used by the resource scheduler
+    @Query("SELECT a.id, a.appointmentDate, a.timeSlot, a.serviceType FROM Appointment a " +
+           "WHERE a.appointmentDate >= :start AND a.appointmentDate < :end " +
+           "AND a.status <> 'CANCELLED' ORDER BY a.id")
+    List<Object[]> findScheduleRowsBetween(@Param("start") LocalDateTime start,
+                                           @Param("end") LocalDateTime end);
+
+    // Compact rows for the customer dashboard, most recent appointment date first
+    @Query("SELECT new com.example.demo.dto.AppointmentSummaryDTO(" +
+           "a.id, a.vehicleBrand, a.model, a.registerNumber, a.serviceType, a.appointmentDate, a.timeSlot, " +
+           "a.status, a.assignedEmployeeId) " +
+           "FROM Appointment a WHERE a.user.id = :userId ORDER BY a.appointmentDate DESC")
+    List<AppointmentSummaryDTO> findSummariesByUserId(@Param("userId") Long userId);
+
+    // Admin listing: one joined projection query (customer + assigned employee), newest first.
+    // Keyset pagination on id - pass the last id of the previous page as afterId.
+    // The date filters are cast so PostgreSQL can type them when they are bound as null.
+    // The employee name is null for unassigned rows (PostgreSQL's concat() would give " ").
+    @Query("SELECT new com.example.demo.dto.AppointmentAdminResponse(" +
+           "a.id, a.vehicleType, a.vehicleBrand, a.model, a.yearOfManufacture, a.registerNumber, a.fuelType, " +
+           "a.serviceCategory, a.serviceType, a.additionalRequirements, a.appointmentDate, a.timeSlot, a.status, " +
+           "c.username, c.email, c.phoneNumber, c.firstName, c.lastName, " +
+           "a.assignedEmployeeId, CASE WHEN e.id IS NOT NULL THEN CONCAT(e.firstName, ' ', e.lastName) END, " +
+           "a.createdAt, a.updatedAt) " +
+           "FROM Appointment a JOIN a.user c LEFT JOIN User e ON e.id = a.assignedEmployeeId " +
+           "WHERE (:afterId IS NULL OR a.id < :afterId) " +
+           "AND (:status IS NULL OR a.status = :status) " +
+           "AND (CAST(:fromDate AS LocalDateTime) IS NULL OR a.appointmentDate >= :fromDate) " +
+           "AND (CAST(:toDate AS LocalDateTime) IS NULL OR a.appointmentDate < :toDate) " +
+           "AND (:serviceType IS NULL OR a.serviceType = :serviceType) " +
+           "AND (:employeeId IS NULL OR a.assignedEmployeeId = :employeeId) " +
+           "ORDER BY a.id DESC")
+    List<AppointmentAdminResponse> findAdminPage(@Param("afterId") Long afterId,
+                                                 @Param("status") AppointmentStatus status,
+                                                 @Param("fromDate") LocalDateTime fromDate,
+                                                 @Param("toDate") LocalDateTime toDate,
+                                                 @Param("serviceType") String serviceType,
+                                                 @Param("employeeId") Long employeeId,
+                                                 Pageable pageable);
+
+    // Appointments per status together with the snapshot they were counted in, as
+    // [snapshot, status, count]. One row with a null status when there are no appointments.
+    @Query(value = "SELECT CAST(pg_current_snapshot() AS text), a.status, COUNT(a.id) " +
+                   "FROM (SELECT 1) one LEFT JOIN appointments a ON TRUE GROUP BY a.status",
+           nativeQuery = true)
+    List<Object[]> countByStatusWithSnapshot();
 }
@@ -2,7 +2,10 @@ package com.example.demo.repository;
 
 import com.example.demo.model.ChatMessage;
 import com.example.demo.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,6 +19,12 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
 
     List<ChatMessage> findByUserAndSessionIdOrderByTimestampAsc(User user, String sessionId);
 
+    // Newest turns of a session first, limited in the database by the pageable
+    @Query("SELECT m FROM ChatMessage m WHERE m.user = :user AND m.sessionId = :sessionId ORDER BY m.id DESC")
+    List<ChatMessage> findRecentTurns(@Param("user") User user,
+                                      @Param("sessionId") String sessionId,
+                                      Pageable pageable);
+
     void deleteByUser(User user);
 }
 
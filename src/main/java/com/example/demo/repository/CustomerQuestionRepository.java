@@ -9,4 +9,5 @@ import java.util.List;
 public interface CustomerQuestionRepository extends JpaRepository<CustomerQuestion, Long> {
     List<CustomerQuestion> findAllByOrderByCreatedAtDesc();
     List<CustomerQuestion> findByIsResolvedOrderByCreatedAtDesc(Boolean isResolved);
+    List<CustomerQuestion> findByAnswerIsNotNullAndIsPublishedTrue();
 }
@@ -2,6 +2,7 @@ package com.example.demo.repository;
 
 import com.example.demo.model.EmployeeService;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,5 +14,10 @@ public interface EmployeeServiceRepository extends JpaRepository<EmployeeService
     List<EmployeeService> findByServiceId(Long serviceId);
     Optional<EmployeeService> findByEmployeeIdAndServiceId(Long employeeId, Long serviceId);
     boolean existsByEmployeeIdAndServiceId(Long employeeId, Long serviceId);
+
+    // [employeeId, serviceId] pairs of active employees, used to load the employee load balancer
+    @Query("SELECT es.employee.id, es.service.id FROM EmployeeService es " +
+           "WHERE es.employee.isActive = true AND es.employee.role = com.example.demo.model.Role.EMPLOYEE")
+    List<Object[]> findActiveEmployeeSkills();
 }
 
@@ -0,0 +1,79 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.NotificationReceipt;
+import com.example.demo.model.Role;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationReceiptRepository extends JpaRepository<NotificationReceipt, NotificationReceipt.Key> {
+
+    // Write a read receipt for every broadcast of the audience the user has not read yet.
+    // Broadcasts only count for a user from `since`, when their account was created.
+    // NOT EXISTS skips receipts already written; ON CONFLICT skips one a concurrent request
+    // wrote in the meantime, so only receipts written here are counted.
+    @Modifying
+    @Query(value = "INSERT INTO notification_receipts (notification_id, user_id, read_at, hidden) " +
+                   "SELECT n.id, :userId, :readAt, false FROM notifications n " +
+                   "WHERE n.audience = :#{#audience.name()} AND n.created_at >= :since " +
+                   "AND NOT EXISTS (SELECT 1 FROM notification_receipts r WHERE r.notification_id = n.id AND r.user_id = :userId) " +
+                   "ON CONFLICT (notification_id, user_id) DO NOTHING",
+           nativeQuery = true)
+    int markAllRead(@Param("userId") Long userId,
+                    @Param("audience") Role audience,
+                    @Param("since") LocalDateTime since,
+                    @Param("readAt") LocalDateTime readAt);
+
+    @Modifying
+    @Query(value = "INSERT INTO notification_receipts (notification_id, user_id, read_at, hidden) " +
+                   "SELECT n.id, :userId, :readAt, false FROM notifications n " +
+                   "WHERE n.audience = :#{#audience.name()} AND n.created_at >= :since AND n.id IN :ids " +
+                   "AND NOT EXISTS (SELECT 1 FROM notification_receipts r WHERE r.notification_id = n.id AND r.user_id = :userId) " +
+                   "ON CONFLICT (notification_id, user_id) DO NOTHING",
+           nativeQuery = true)
+    int markRead(@Param("userId") Long userId,
+                 @Param("audience") Role audience,
+                 @Param("since") LocalDateTime since,
+                 @Param("ids") List<Long> ids,
+                 @Param("readAt") LocalDateTime readAt);
+
+    @Modifying
+    @Query(value = "INSERT INTO notification_receipts (notification_id, user_id, read_at, hidden) " +
+                   "SELECT n.id, :userId, :readAt, false FROM notifications n " +
+                   "WHERE n.audience = :#{#audience.name()} AND n.created_at >= :since AND n.id <= :upToId " +
+                   "AND NOT EXISTS (SELECT 1 FROM notification_receipts r WHERE r.notification_id = n.id AND r.user_id = :userId) " +
+                   "ON CONFLICT (notification_id, user_id) DO NOTHING",
+           nativeQuery = true)
+    int markReadUpTo(@Param("userId") Long userId,
+                     @Param("audience") Role audience,
+                     @Param("since") LocalDateTime since,
+                     @Param("upToId") Long upToId,
+                     @Param("readAt") LocalDateTime readAt);
+
+    // Hide broadcasts the user has already read
+    @Modifying
+    @Query("UPDATE NotificationReceipt r SET r.hidden = true " +
+           "WHERE r.userId = :userId AND r.notificationId IN :ids AND r.hidden = false")
+    int hide(@Param("userId") Long userId, @Param("ids") List<Long> ids);
+
+    // Hide broadcasts the user has not read yet; returns how many unread broadcasts went away.
+    // A receipt a concurrent request wrote first is left to hide, so call that afterwards.
+    @Modifying
+    @Query(value = "INSERT INTO notification_receipts (notification_id, user_id, read_at, hidden) " +
+                   "SELECT n.id, :userId, :readAt, true FROM notifications n " +
+                   "WHERE n.audience = :#{#audience.name()} AND n.created_at >= :since AND n.id IN :ids " +
+                   "AND NOT EXISTS (SELECT 1 FROM notification_receipts r WHERE r.notification_id = n.id AND r.user_id = :userId) " +
+                   "ON CONFLICT (notification_id, user_id) DO NOTHING",
+           nativeQuery = true)
+    int hideUnread(@Param("userId") Long userId,
+                   @Param("audience") Role audience,
+                   @Param("since") LocalDateTime since,
+                   @Param("ids") List<Long> ids,
+                   @Param("readAt") LocalDateTime readAt);
+}
@@ -1,9 +1,16 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.Notification;
+import com.example.demo.model.NotificationType;
+import com.example.demo.model.Role;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -20,5 +27,69 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
 
     // Count unread notifications for a user
     long countByRecipientIdAndIsReadFalse(Long recipientId);
+
+    // Feed pages, newest first. Keyset pagination on id - pass the last id of the previous page as before.
+    @Query("SELECT n FROM Notification n WHERE n.recipientId = :userId " +
+           "AND (:before IS NULL OR n.id < :before) " +
+           "AND (:type IS NULL OR n.type = :type) " +
+           "ORDER BY n.id DESC")
+    List<Notification> findPage(@Param("userId") Long userId,
+                                @Param("before") Long before,
+                                @Param("type") NotificationType type,
+                                Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.recipientId = :userId AND n.isRead = false " +
+           "AND (:before IS NULL OR n.id < :before) " +
+           "AND (:type IS NULL OR n.type = :type) " +
+           "ORDER BY n.id DESC")
+    List<Notification> findUnreadPage(@Param("userId") Long userId,
+                                      @Param("before") Long before,
+                                      @Param("type") NotificationType type,
+                                      Pageable pageable);
+
+    // Broadcasts to an audience that the user has not hidden, as [Notification, NotificationReceipt or null] rows
+    @Query("SELECT n, r FROM Notification n " +
+           "LEFT JOIN NotificationReceipt r ON r.notificationId = n.id AND r.userId = :userId " +
+           "WHERE n.audience = :audience AND n.createdAt >= :since AND COALESCE(r.hidden, false) = false " +
+           "AND (:unreadOnly = false OR r.userId IS NULL) " +
+           "AND (:before IS NULL OR n.id < :before) " +
+           "AND (:type IS NULL OR n.type = :type) " +
+           "ORDER BY n.id DESC")
+    List<Object[]> findBroadcastPage(@Param("userId") Long userId,
+                                     @Param("audience") Role audience,
+                                     @Param("since") LocalDateTime since,
+                                     @Param("unreadOnly") boolean unreadOnly,
+                                     @Param("before") Long before,
+                                     @Param("type") NotificationType type,
+                                     Pageable pageable);
+
+    @Query("SELECT COUNT(n) FROM Notification n WHERE (n.recipientId = :userId AND n.isRead = false) " +
+           "OR (n.audience = :audience AND n.createdAt >= :since AND NOT EXISTS (" +
+           "SELECT r FROM NotificationReceipt r WHERE r.notificationId = n.id AND r.userId = :userId))")
+    long countUnreadForUser(@Param("userId") Long userId,
+                            @Param("audience") Role audience,
+                            @Param("since") LocalDateTime since);
+
+    // Set-based updates below return the number of rows changed, which is exactly the drop in unread count
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :readAt " +
+           "WHERE n.recipientId = :userId AND n.isRead = false")
+    int markAllRead(@Param("userId") Long userId, @Param("readAt") LocalDateTime readAt);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :readAt " +
+           "WHERE n.recipientId = :userId AND n.isRead = false AND n.id IN :ids")
+    int markRead(@Param("userId") Long userId, @Param("ids") List<Long> ids, @Param("readAt") LocalDateTime readAt);
+
+    // Watermark: everything up to and including a notification (ids grow with creation time)
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :readAt " +
+           "WHERE n.recipientId = :userId AND n.isRead = false AND n.id <= :upToId")
+    int markReadUpTo(@Param("userId") Long userId, @Param("upToId") Long upToId, @Param("readAt") LocalDateTime readAt);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.recipientId = :userId AND n.id IN :ids AND n.isRead = :isRead")
+    int deleteByIds(@Param("userId") Long userId, @Param("ids") List<Long> ids, @Param("isRead") boolean isRead);
 }
 
@@ -0,0 +1,63 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.ServiceCapacity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ServiceCapacityRepository extends JpaRepository<ServiceCapacity, ServiceCapacity.Key> {
+
+    Optional<ServiceCapacity> findByServiceIdAndCapacityDate(Long serviceId, LocalDate capacityDate);
+
+    List<ServiceCapacity> findByCapacityDate(LocalDate capacityDate);
+
+    List<ServiceCapacity> findByServiceIdAndCapacityDateBetweenOrderByCapacityDate(Long serviceId, LocalDate from, LocalDate to);
+
+    // Atomically take one slot, creating the row on the first booking of the date.
+    // Returns 0 when the date is already full.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO service_capacity (service_id, capacity_date, booked, max_slots) " +
+                   "VALUES (:serviceId, :date, 1, :maxSlots) " +
+                   "ON CONFLICT (service_id, capacity_date) DO UPDATE " +
+                   "SET booked = service_capacity.booked + 1, max_slots = EXCLUDED.max_slots " +
+                   "WHERE service_capacity.booked < EXCLUDED.max_slots",
+           nativeQuery = true)
+    int reserve(@Param("serviceId") Long serviceId, @Param("date") LocalDate date, @Param("maxSlots") int maxSlots);
+
+    // Count a booking even if the date is full (e.g. a cancelled appointment being reopened)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO service_capacity (service_id, capacity_date, booked, max_slots) " +
+                   "VALUES (:serviceId, :date, 1, :maxSlots) " +
+                   "ON CONFLICT (service_id, capacity_date) DO UPDATE " +
+                   "SET booked = service_capacity.booked + 1",
+           nativeQuery = true)
+    int book(@Param("serviceId") Long serviceId, @Param("date") LocalDate date, @Param("maxSlots") int maxSlots);
+
+    // Atomically give back one slot
+    @Modifying
+    @Transactional
+    @Query("UPDATE ServiceCapacity c SET c.booked = c.booked - 1 " +
+           "WHERE c.serviceId = :serviceId AND c.capacityDate = :date AND c.booked > 0")
+    int release(@Param("serviceId") Long serviceId, @Param("date") LocalDate date);
+
+    // Apply a changed daily limit to today and future dates
+    @Modifying
+    @Transactional
+    @Query("UPDATE ServiceCapacity c SET c.maxSlots = :maxSlots WHERE c.serviceId = :serviceId AND c.capacityDate >= :from")
+    int updateMaxSlotsFrom(@Param("serviceId") Long serviceId, @Param("from") LocalDate from, @Param("maxSlots") int maxSlots);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ServiceCapacity c WHERE c.serviceId = :serviceId")
+    void deleteByServiceId(@Param("serviceId") Long serviceId);
+}
@@ -4,7 +4,9 @@ import com.example.demo.model.Service;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ServiceRepository extends JpaRepository<Service, Long> {
@@ -14,4 +16,10 @@ public interface ServiceRepository extends JpaRepository<Service, Long> {
     List<Service> findByCategory(String category);
     
     List<Service> findByServiceNameContainingIgnoreCase(String serviceName);
+
+    // Appointments reference their service by name (Appointment.serviceType)
+    Optional<Service> findFirstByServiceName(String serviceName);
+
+    // Services of many appointments in one query (bulk operations)
+    List<Service> findByServiceNameIn(Collection<String> serviceNames);
 }
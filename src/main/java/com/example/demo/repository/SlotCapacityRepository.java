@@ -0,0 +1,44 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.SlotCapacity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+@Repository
+public interface SlotCapacityRepository extends JpaRepository<SlotCapacity, SlotCapacity.Key> {
+
+    // Atomically take one bay in the time slot, creating the row on the first booking of the slot.
+    // Returns 0 when every bay is already taken.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO slot_capacity (slot_date, time_slot, booked) " +
+                   "VALUES (:date, :timeSlot, 1) " +
+                   "ON CONFLICT (slot_date, time_slot) DO UPDATE " +
+                   "SET booked = slot_capacity.booked + 1 " +
+                   "WHERE slot_capacity.booked < :bays",
+           nativeQuery = true)
+    int reserve(@Param("date") LocalDate date, @Param("timeSlot") String timeSlot, @Param("bays") int bays);
+
+    // Count a booking even if every bay is taken (e.g. a cancelled appointment being reopened)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO slot_capacity (slot_date, time_slot, booked) " +
+                   "VALUES (:date, :timeSlot, 1) " +
+                   "ON CONFLICT (slot_date, time_slot) DO UPDATE " +
+                   "SET booked = slot_capacity.booked + 1",
+           nativeQuery = true)
+    int book(@Param("date") LocalDate date, @Param("timeSlot") String timeSlot);
+
+    // Atomically give back one bay
+    @Modifying
+    @Transactional
+    @Query("UPDATE SlotCapacity c SET c.booked = c.booked - 1 " +
+           "WHERE c.slotDate = :date AND c.timeSlot = :timeSlot AND c.booked > 0")
+    int release(@Param("date") LocalDate date, @Param("timeSlot") String timeSlot);
+}
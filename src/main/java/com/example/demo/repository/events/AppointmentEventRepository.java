@@ -0,0 +1,41 @@
+package com.example.demo.repository.events;
+
+import com.example.demo.model.events.AppointmentEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface AppointmentEventRepository extends JpaRepository<AppointmentEvent, Long> {
+
+    // Next events after a position, in commit order. Only transactions older than every
+    // transaction still running are read, so no event can still appear before the position.
+    @Query(value = "SELECT * FROM appointment_events e " +
+                   "WHERE (e.tx_id, e.id) > (:transactionId, :eventId) " +
+                   "AND e.tx_id < CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint) " +
+                   "ORDER BY e.tx_id, e.id LIMIT :limit",
+           nativeQuery = true)
+    List<AppointmentEvent> findNextBatch(@Param("transactionId") long transactionId,
+                                         @Param("eventId") long eventId,
+                                         @Param("limit") int limit);
+
+    // Oldest transaction still running. Events of older transactions are all visible.
+    @Query(value = "SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint)", nativeQuery = true)
+    long findOldestRunningTransaction();
+
+    // Retention: events older than the cutoff that every durable consumer is past
+    @Modifying
+    @Query(value = "DELETE FROM appointment_events e WHERE e.created_at < :cutoff " +
+                   "AND (e.tx_id, e.id) <= (:transactionId, :eventId)",
+           nativeQuery = true)
+    int deleteDeliveredBefore(@Param("cutoff") LocalDateTime cutoff,
+                              @Param("transactionId") long transactionId,
+                              @Param("eventId") long eventId);
+
+    @Query("SELECT e.transactionId FROM AppointmentEvent e WHERE e.id = :id")
+    Optional<Long> findTransactionIdById(@Param("id") Long id);
+}
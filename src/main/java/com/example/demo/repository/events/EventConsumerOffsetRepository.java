@@ -0,0 +1,18 @@
+package com.example.demo.repository.events;
+
+import com.example.demo.model.events.EventConsumerOffset;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface EventConsumerOffsetRepository extends JpaRepository<EventConsumerOffset, String> {
+
+    // Row lock so only one node processes a durable consumer's next batch at a time
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM EventConsumerOffset o WHERE o.consumerName = :name")
+    Optional<EventConsumerOffset> findForUpdate(@Param("name") String name);
+}
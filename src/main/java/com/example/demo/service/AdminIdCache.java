@@ -0,0 +1,92 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Role;
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * IDs of all admin users with the time each account was created, so notification reads can
+ * tell whether a user sees admin broadcasts, and from when, without loading the user.
+ * AdminRoleListener drops the set after every committed user change on this node; other
+ * nodes reload it after the TTL.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdminIdCache {
+
+    // Used for accounts without a creation time
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final UserRepository userRepository;
+
+    @Value("${notifications.admin-ids.ttl-ms:300000}")
+    private long ttlMs;
+
+    private volatile Map<Long, LocalDateTime> admins;
+    private volatile long loadedAt;
+
+    public boolean isAdmin(Long userId) {
+        return userId != null && getAdmins().containsKey(userId);
+    }
+
+    public Set<Long> getAdminIds() {
+        return getAdmins().keySet();
+    }
+
+    /**
+     * When the admin's account was created; broadcasts from before then are not theirs
+     */
+    public LocalDateTime adminSince(Long userId) {
+        return userId != null ? getAdmins().getOrDefault(userId, BEGINNING) : BEGINNING;
+    }
+
+    public synchronized void invalidate() {
+        admins = null;
+    }
+
+    // Dropping the set before the commit would let a reload read the old roles and keep them for the TTL
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate();
+            }
+        });
+    }
+
+    private Map<Long, LocalDateTime> getAdmins() {
+        Map<Long, LocalDateTime> current = admins;
+        if (current != null && System.currentTimeMillis() - loadedAt < ttlMs) {
+            return current;
+        }
+        return reload();
+    }
+
+    private synchronized Map<Long, LocalDateTime> reload() {
+        // Another thread may have reloaded while this one waited for the lock
+        Map<Long, LocalDateTime> current = admins;
+        if (current != null && System.currentTimeMillis() - loadedAt < ttlMs) {
+            return current;
+        }
+        current = userRepository.findByRole(Role.ADMIN).stream()
+                .collect(Collectors.toUnmodifiableMap(User::getId,
+                        user -> user.getCreatedAt() != null ? user.getCreatedAt() : BEGINNING));
+        loadedAt = System.currentTimeMillis();
+        admins = current;
+        return current;
+    }
+}
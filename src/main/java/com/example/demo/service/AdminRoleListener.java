@@ -0,0 +1,30 @@
+package com.example.demo.service;
+
+import com.example.demo.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entity listener on User. Any user insert, update or delete may add or remove an admin,
+ * so each one drops the AdminIdCache once its transaction commits.
+ */
+@Component
+public class AdminRoleListener {
+
+    private final AdminIdCache adminIdCache;
+
+    // Lazy: Hibernate creates the listener while the EntityManagerFactory that AdminIdCache needs is being built
+    public AdminRoleListener(@Lazy AdminIdCache adminIdCache) {
+        this.adminIdCache = adminIdCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void userChanged(User user) {
+        adminIdCache.invalidateAfterCommit();
+    }
+}
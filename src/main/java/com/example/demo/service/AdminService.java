@@ -28,6 +28,7 @@ public class AdminService {
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
     private final JwtTokenProvider jwtTokenProvider;
+    private final EmployeeLoadBalancer employeeLoadBalancer;
 
     @Transactional
     public ApiResponse addEmployee(EmployeeRequest request) {
@@ -112,6 +113,7 @@ public class AdminService {
 
         user.setIsActive(false);
         userRepository.save(user);
+        employeeLoadBalancer.removeEmployee(id);
 
         return ApiResponse.builder()
                 .success(true)
@@ -126,6 +128,10 @@ public class AdminService {
 
         user.setIsActive(true);
         userRepository.save(user);
+        if (user.getRole() == Role.EMPLOYEE) {
+            // Bring the employee's skills and current load back into auto-assignment
+            employeeLoadBalancer.reconcile();
+        }
 
         return ApiResponse.builder()
                 .success(true)
@@ -3,23 +3,53 @@ package com.example.demo.service;
 
 import com.example.demo.dto.AppointmentDTO;
 import com.example.demo.dto.AppointmentAdminResponse;
+import com.example.demo.dto.AppointmentPageResponse;
+import com.example.demo.dto.BulkAppointmentRequest;
+import com.example.demo.dto.BulkAppointmentResponse;
+import com.example.demo.dto.ScheduleWindowResponse;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.model.Appointment;
 import com.example.demo.model.AppointmentStatus;
-import com.example.demo.model.NotificationType;
+import com.example.demo.model.Role;
 import com.example.demo.model.User;
 import com.example.demo.repository.AppointmentRepository;
+import com.example.demo.repository.ServiceCapacityRepository;
+import com.example.demo.repository.ServiceRepository;
+import com.example.demo.repository.SlotCapacityRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.events.AppointmentEventPublisher;
+import com.example.demo.service.scheduling.ResourceScheduler;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Service
 public class AppointmentService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private AppointmentRepository appointmentRepository;
 
@@ -27,7 +57,31 @@ public class AppointmentService {
     private UserRepository userRepository;
 
     @Autowired
-    private NotificationService notificationService;
+    private AppointmentEventPublisher eventPublisher;
+
+    @Autowired
+    private BookingLocks bookingLocks;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private ServiceCapacityRepository serviceCapacityRepository;
+
+    @Autowired
+    private SlotCapacityRepository slotCapacityRepository;
+
+    @Autowired
+    private EmployeeLoadBalancer employeeLoadBalancer;
+
+    @Autowired
+    private ResourceScheduler resourceScheduler;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${scheduling.bays:1}")
+    private int bays = 1;
 
     // Create an appointment
     public Appointment createAppointment(AppointmentDTO appointmentDTO, String username) {
@@ -50,28 +104,126 @@ public class AppointmentService {
         appointment.setStatus(AppointmentStatus.PENDING);  // Default to Pending
         appointment.setUser(user);  // Assign the logged-in user to the appointment
 
-        Appointment savedAppointment = appointmentRepository.save(appointment);
+        if (appointment.getAppointmentDate() == null || appointment.getTimeSlot() == null) {
+            throw new BadRequestException("Appointment date and time slot are required");
+        }
+
+        // Serialize bookings of the same day on this node - with real durations, any two bookings
+        // on a day can compete for the same bay
+        LocalDate date = appointment.getAppointmentDate().toLocalDate();
+        return bookingLocks.withLocks(() -> reserveAndSave(appointment, date), date);
+    }
 
-        // Notify customer about appointment creation
-        notificationService.notifyCustomer(
-                user.getId(),
-                savedAppointment.getId(),
-                "Appointment Created",
-                "Your appointment for " + appointmentDTO.getVehicleBrand() + " " + appointmentDTO.getModel() +
-                " has been created successfully. Status: PENDING",
-                NotificationType.APPOINTMENT_CREATED
-        );
-
-        // Notify all admins about new appointment
-        notificationService.notifyAdmins(
-                savedAppointment.getId(),
-                "New Appointment",
-                "New appointment created by " + user.getFirstName() + " " + user.getLastName() +
-                " for " + appointmentDTO.getVehicleBrand() + " " + appointmentDTO.getModel(),
-                NotificationType.APPOINTMENT_CREATED
-        );
+    // Check bay and service capacity, then insert. Must be called while holding the booking lock of the date.
+    private Appointment reserveAndSave(Appointment appointment, LocalDate date) {
+        // A bay must be free from the time slot until the service's estimated duration has passed
+        com.example.demo.model.Service service = findBookedService(appointment);
+        Double durationHours = service != null ? service.getEstimatedDuration() : null;
+        if (!resourceScheduler.hasCapacity(appointment, durationHours)) {
+            throw new BadRequestException("Time slot " + appointment.getTimeSlot() + " on " + date + " is already booked");
+        }
 
-        return savedAppointment;
+        // The capacity slot, the appointment row and its CREATED event commit or roll back
+        // together, so a failed insert never keeps a reserved slot or leaves an event behind
+        Appointment saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                // No more bookings may start in a time slot than there are bays, whichever node takes them
+                if (slotCapacityRepository.reserve(date, appointment.getTimeSlot(), Math.max(1, bays)) == 0) {
+                    throw new BadRequestException("Time slot " + appointment.getTimeSlot() + " on " + date + " is already booked");
+                }
+                // One atomic upsert on the (service, date) capacity row both checks and takes the slot
+                if (service != null && serviceCapacityRepository.reserve(service.getId(), date, service.getMaxDailySlots()) == 0) {
+                    throw new BadRequestException("No slots left for " + service.getServiceName() + " on " + date);
+                }
+                Appointment inserted = appointmentRepository.saveAndFlush(appointment);
+                // Customer and admin notifications are sent by the event consumers
+                eventPublisher.publishCreated(inserted);
+                return inserted;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another node took the slot first (unique index on date + time slot with a single bay)
+            throw new BadRequestException("Time slot " + appointment.getTimeSlot() + " on " + date + " is already booked");
+        }
+
+        resourceScheduler.place(saved, durationHours);
+        return saved;
+    }
+
+    // Keep the bay schedule and slot counts, the service capacity calendar and employee loads in step after a status change
+    public void syncBookingState(Appointment appointment, AppointmentStatus oldStatus) {
+        syncBookingState(appointment, oldStatus, this::findBookedService);
+    }
+
+    // The capacity calendars are updated in the caller's transaction, if there is one; the
+    // in-memory views only once it has committed
+    private void syncBookingState(Appointment appointment, AppointmentStatus oldStatus,
+                                  Function<Appointment, com.example.demo.model.Service> services) {
+        boolean wasBooked = oldStatus != AppointmentStatus.CANCELLED;
+        boolean isBooked = appointment.getStatus() != AppointmentStatus.CANCELLED;
+        com.example.demo.model.Service service = wasBooked != isBooked ? services.apply(appointment) : null;
+
+        if (wasBooked != isBooked) {
+            LocalDate date = appointment.getAppointmentDate().toLocalDate();
+            if (isBooked) {
+                slotCapacityRepository.book(date, appointment.getTimeSlot());
+            } else {
+                slotCapacityRepository.release(date, appointment.getTimeSlot());
+            }
+        }
+        if (service != null) {
+            LocalDate date = appointment.getAppointmentDate().toLocalDate();
+            if (isBooked) {
+                // The status change has already been made, so count it even if the date is full
+                serviceCapacityRepository.book(service.getId(), date, service.getMaxDailySlots());
+            } else {
+                serviceCapacityRepository.release(service.getId(), date);
+            }
+        }
+
+        afterCommit(() -> {
+            employeeLoadBalancer.onStatusChange(appointment, oldStatus);
+            if (wasBooked != isBooked) {
+                resourceScheduler.onStatusChange(appointment, oldStatus, service != null ? service.getEstimatedDuration() : null);
+            }
+        });
+    }
+
+    // Run a change to the in-memory views once the current transaction commits, so a rollback
+    // cannot leave them ahead of the database. Without a transaction the change is made now.
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    // Undo a change made ahead of commit (so later steps of the same transaction see it) if the transaction rolls back
+    private static void undoOnRollback(Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    undo.run();
+                }
+            }
+        });
+    }
+
+    private com.example.demo.model.Service findBookedService(Appointment appointment) {
+        if (appointment.getServiceType() == null) {
+            return null;
+        }
+        return serviceRepository.findFirstByServiceName(appointment.getServiceType()).orElse(null);
     }
 
     // Get all appointments for the logged-in customer
@@ -98,53 +250,37 @@ public class AppointmentService {
 
     // Admin: Get all appointments with customer details
     public List<AppointmentAdminResponse> getAllAppointmentsWithCustomerDetails() {
-        List<Appointment> appointments = appointmentRepository.findAll();
-        return appointments.stream()
-                .map(this::convertToAdminResponse)
-                .collect(Collectors.toList());
+        return appointmentRepository.findAdminPage(null, null, null, null, null, null, Pageable.unpaged());
     }
 
-    // Convert Appointment to AppointmentAdminResponse with customer details
-    private AppointmentAdminResponse convertToAdminResponse(Appointment appointment) {
-        User customer = appointment.getUser();
+    // Admin: Get one page of appointments (keyset pagination, newest first) with optional filters
+    public AppointmentPageResponse getAppointmentsPage(Long cursor, Integer limit, AppointmentStatus status,
+                                                       LocalDate fromDate, LocalDate toDate,
+                                                       String serviceType, Long employeeId) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // Fetch one extra row to know whether another page exists
+        List<AppointmentAdminResponse> rows = appointmentRepository.findAdminPage(
+                cursor,
+                status,
+                fromDate != null ? fromDate.atStartOfDay() : null,
+                toDate != null ? toDate.plusDays(1).atStartOfDay() : null,
+                serviceType,
+                employeeId,
+                PageRequest.of(0, pageSize + 1));
 
-        // Get assigned employee name if exists
-        String assignedEmployeeName = null;
-        if (appointment.getAssignedEmployeeId() != null) {
-            Optional<User> employee = userRepository.findById(appointment.getAssignedEmployeeId());
-            if (employee.isPresent()) {
-                User emp = employee.get();
-                assignedEmployeeName = emp.getFirstName() + " " + emp.getLastName();
-            }
-        }
+        boolean hasMore = rows.size() > pageSize;
+        List<AppointmentAdminResponse> items = hasMore ? rows.subList(0, pageSize) : rows;
 
-        return AppointmentAdminResponse.builder()
-                .id(appointment.getId())
-                .vehicleType(appointment.getVehicleType())
-                .vehicleBrand(appointment.getVehicleBrand())
-                .model(appointment.getModel())
-                .yearOfManufacture(appointment.getYearOfManufacture())
-                .registerNumber(appointment.getRegisterNumber())
-                .fuelType(appointment.getFuelType())
-                .serviceCategory(appointment.getServiceCategory())
-                .serviceType(appointment.getServiceType())
-                .additionalRequirements(appointment.getAdditionalRequirements())
-                .appointmentDate(appointment.getAppointmentDate())
-                .timeSlot(appointment.getTimeSlot())
-                .status(appointment.getStatus())
-                .customerUsername(customer.getUsername())
-                .customerEmail(customer.getEmail())
-                .customerPhone(customer.getPhoneNumber())
-                .customerFirstName(customer.getFirstName())
-                .customerLastName(customer.getLastName())
-                .assignedEmployeeId(appointment.getAssignedEmployeeId())
-                .assignedEmployeeName(assignedEmployeeName)
-                .createdAt(appointment.getCreatedAt())
-                .updatedAt(appointment.getUpdatedAt())
+        return AppointmentPageResponse.builder()
+                .items(items)
+                .nextCursor(hasMore ? items.get(items.size() - 1).getId() : null)
+                .hasMore(hasMore)
                 .build();
     }
 
     // Admin: Approve appointment (change status from PENDING to CONFIRMED)
+    @Transactional
     public Appointment approveAppointment(Long appointmentId) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new IllegalArgumentException("Appointment not found"));
@@ -155,44 +291,28 @@ public class AppointmentService {
 
         appointment.setStatus(AppointmentStatus.CONFIRMED);
         Appointment savedAppointment = appointmentRepository.save(appointment);
-
-        // Notify customer about appointment confirmation
-        User customer = appointment.getUser();
-        notificationService.notifyCustomer(
-                customer.getId(),
-                appointmentId,
-                "Appointment Confirmed",
-                "Your appointment for " + appointment.getVehicleBrand() + " " + appointment.getModel() +
-                " has been confirmed by admin.",
-                NotificationType.APPOINTMENT_CONFIRMED
-        );
+        eventPublisher.publishStatusChange(savedAppointment, AppointmentStatus.PENDING, Role.ADMIN);
 
         return savedAppointment;
     }
 
     // Admin: Reject appointment (change status to CANCELLED)
+    @Transactional
     public Appointment rejectAppointment(Long appointmentId) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new IllegalArgumentException("Appointment not found"));
 
+        AppointmentStatus oldStatus = appointment.getStatus();
         appointment.setStatus(AppointmentStatus.CANCELLED);
         Appointment savedAppointment = appointmentRepository.save(appointment);
-
-        // Notify customer about appointment cancellation
-        User customer = appointment.getUser();
-        notificationService.notifyCustomer(
-                customer.getId(),
-                appointmentId,
-                "Appointment Cancelled",
-                "Your appointment for " + appointment.getVehicleBrand() + " " + appointment.getModel() +
-                " has been cancelled by admin.",
-                NotificationType.APPOINTMENT_CANCELLED
-        );
+        syncBookingState(savedAppointment, oldStatus);
+        eventPublisher.publishStatusChange(savedAppointment, oldStatus, Role.ADMIN);
 
         return savedAppointment;
     }
 
     // Admin: Assign employee to appointment (change status to IN_SERVICE)
+    @Transactional
     public Appointment assignEmployeeToAppointment(Long appointmentId, Long employeeId) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new IllegalArgumentException("Appointment not found"));
@@ -202,38 +322,174 @@ public class AppointmentService {
                 .orElseThrow(() -> new IllegalArgumentException("Employee not found"));
 
         // Assign the employee
+        AppointmentStatus oldStatus = appointment.getStatus();
+        Long previousEmployeeId = appointment.getAssignedEmployeeId();
         appointment.setAssignedEmployeeId(employeeId);
 
         // Change status to IN_SERVICE
         appointment.setStatus(AppointmentStatus.IN_SERVICE);
 
         Appointment savedAppointment = appointmentRepository.save(appointment);
+        afterCommit(() -> employeeLoadBalancer.onAssigned(savedAppointment, previousEmployeeId, oldStatus));
+        eventPublisher.publishAssigned(savedAppointment, oldStatus, employee);
 
-        // Notify employee about assignment
-        notificationService.notifyEmployee(
-                employeeId,
-                appointmentId,
-                "New Appointment Assigned",
-                "You have been assigned to service " + appointment.getVehicleBrand() + " " +
-                appointment.getModel() + " (Reg: " + appointment.getRegisterNumber() + ")",
-                NotificationType.EMPLOYEE_ASSIGNED
-        );
-
-        // Notify customer about employee assignment
-        User customer = appointment.getUser();
-        notificationService.notifyCustomer(
-                customer.getId(),
-                appointmentId,
-                "Employee Assigned",
-                "Employee " + employee.getFirstName() + " " + employee.getLastName() +
-                " has been assigned to your appointment. Service is now in progress.",
-                NotificationType.STATUS_CHANGED_IN_SERVICE
-        );
+        return savedAppointment;
+    }
+
+    // Admin: Assign the least-loaded employee who can do the appointment's service (change status to IN_SERVICE)
+    @Transactional
+    public Appointment autoAssignAppointment(Long appointmentId) {
+        Appointment appointment = appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new IllegalArgumentException("Appointment not found"));
+
+        AppointmentStatus oldStatus = appointment.getStatus();
+        Long previousEmployeeId = appointment.getAssignedEmployeeId();
+        User employee = takeQualifiedEmployee(findBookedService(appointment), new HashMap<>());
+        if (employee == null) {
+            throw new BadRequestException("No active employee is assigned to " + appointment.getServiceType());
+        }
+
+        appointment.setAssignedEmployeeId(employee.getId());
+        appointment.setStatus(AppointmentStatus.IN_SERVICE);
+        Appointment savedAppointment = appointmentRepository.save(appointment);
+        afterCommit(() -> employeeLoadBalancer.releaseLoad(previousEmployeeId, oldStatus));
+        eventPublisher.publishAssigned(savedAppointment, oldStatus, employee);
 
         return savedAppointment;
     }
 
+    // Take the least-loaded employee who can do the service (already counted against their load),
+    // or null if there is none. Employees are looked up through the given cache. Inside a
+    // transaction the load is given back if it rolls back.
+    private User takeQualifiedEmployee(com.example.demo.model.Service service, Map<Long, User> employees) {
+        Long employeeId = service != null ? employeeLoadBalancer.takeLeastLoaded(service.getId()) : null;
+        if (employeeId == null) {
+            return null;
+        }
+
+        User employee = employees.computeIfAbsent(employeeId, id -> userRepository.findById(id).orElse(null));
+        if (employee == null) {
+            employeeLoadBalancer.adjust(employeeId, -1);
+            return null;
+        }
+        undoOnRollback(() -> employeeLoadBalancer.adjust(employeeId, -1));
+        return employee;
+    }
+
+    // Admin: Apply many approve/reject/assign transitions in one transaction.
+    // Appointments, employees and services are loaded with one query each and the status updates
+    // are flushed together as a JDBC batch on commit. The events commit with them under one
+    // correlation id, which the notification consumer uses to coalesce them into one
+    // notification per recipient. In-memory
+    // views (bay schedule, employee loads) change only after the commit.
+    @Transactional
+    public BulkAppointmentResponse applyBulkTransitions(BulkAppointmentRequest request) {
+        List<BulkAppointmentRequest.Item> items = request.getItems();
+
+        Map<Long, Appointment> appointments = appointmentRepository.findAllById(
+                        items.stream().map(BulkAppointmentRequest.Item::getAppointmentId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Appointment::getId, Function.identity()));
+
+        Map<Long, User> employees = userRepository.findAllById(
+                        items.stream()
+                                .filter(item -> item.getAction() == BulkAppointmentRequest.Action.ASSIGN)
+                                .map(BulkAppointmentRequest.Item::getEmployeeId)
+                                .filter(Objects::nonNull)
+                                .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        // Appointments name their service; the first service with each name, as findBookedService picks
+        Map<String, com.example.demo.model.Service> services = new HashMap<>();
+        Set<String> serviceNames = appointments.values().stream()
+                .map(Appointment::getServiceType)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (!serviceNames.isEmpty()) {
+            serviceRepository.findByServiceNameIn(serviceNames)
+                    .forEach(service -> services.putIfAbsent(service.getServiceName(), service));
+        }
+
+        List<BulkAppointmentResponse.ItemResult> results = new ArrayList<>(items.size());
+        int succeeded = 0;
+        String correlationId = UUID.randomUUID().toString();
+
+        for (BulkAppointmentRequest.Item item : items) {
+            Appointment appointment = appointments.get(item.getAppointmentId());
+            String error = appointment == null
+                    ? "Appointment not found"
+                    : applyTransition(item, appointment, employees, services, correlationId);
+
+            if (error == null) {
+                succeeded++;
+            }
+            results.add(BulkAppointmentResponse.ItemResult.builder()
+                    .appointmentId(item.getAppointmentId())
+                    .action(item.getAction())
+                    .success(error == null)
+                    .message(error == null ? "OK" : error)
+                    .status(appointment != null ? appointment.getStatus() : null)
+                    .build());
+        }
+
+        return BulkAppointmentResponse.builder()
+                .succeeded(succeeded)
+                .failed(items.size() - succeeded)
+                .results(results)
+                .build();
+    }
+
+    // Apply one bulk item to a managed appointment. Returns an error message, or null on success.
+    private String applyTransition(BulkAppointmentRequest.Item item, Appointment appointment, Map<Long, User> employees,
+                                   Map<String, com.example.demo.model.Service> services, String correlationId) {
+        AppointmentStatus oldStatus = appointment.getStatus();
+        Long previousEmployeeId = appointment.getAssignedEmployeeId();
+
+        switch (item.getAction()) {
+            case APPROVE:
+                if (oldStatus != AppointmentStatus.PENDING) {
+                    return "Only pending appointments can be approved";
+                }
+                appointment.setStatus(AppointmentStatus.CONFIRMED);
+                eventPublisher.publishStatusChange(appointment, oldStatus, Role.ADMIN, correlationId);
+                return null;
+
+            case REJECT:
+                appointment.setStatus(AppointmentStatus.CANCELLED);
+                syncBookingState(appointment, oldStatus, a -> services.get(a.getServiceType()));
+                eventPublisher.publishStatusChange(appointment, oldStatus, Role.ADMIN, correlationId);
+                return null;
+
+            case ASSIGN:
+                User employee = item.getEmployeeId() != null ? employees.get(item.getEmployeeId()) : null;
+                if (employee == null) {
+                    return "Employee not found";
+                }
+                appointment.setAssignedEmployeeId(employee.getId());
+                appointment.setStatus(AppointmentStatus.IN_SERVICE);
+                afterCommit(() -> employeeLoadBalancer.onAssigned(appointment, previousEmployeeId, oldStatus));
+                eventPublisher.publishAssigned(appointment, oldStatus, employee, correlationId);
+                return null;
+
+            case AUTO_ASSIGN:
+                User leastLoaded = takeQualifiedEmployee(services.get(appointment.getServiceType()), employees);
+                if (leastLoaded == null) {
+                    return "No active employee is assigned to " + appointment.getServiceType();
+                }
+                appointment.setAssignedEmployeeId(leastLoaded.getId());
+                appointment.setStatus(AppointmentStatus.IN_SERVICE);
+                afterCommit(() -> employeeLoadBalancer.releaseLoad(previousEmployeeId, oldStatus));
+                eventPublisher.publishAssigned(appointment, oldStatus, leastLoaded, correlationId);
+                return null;
+
+            default:
+                return "Unsupported action: " + item.getAction();
+        }
+    }
+
     // Customer: Cancel an appointment
+    @Transactional
     public void cancelAppointment(Long appointmentId, String username) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new IllegalArgumentException("Appointment not found"));
@@ -252,30 +508,33 @@ public class AppointmentService {
         }
 
         // Update status
+        AppointmentStatus oldStatus = appointment.getStatus();
         appointment.setStatus(AppointmentStatus.CANCELLED);
         appointmentRepository.save(appointment);
+        syncBookingState(appointment, oldStatus);
+
+        // Admins and the assigned employee are notified by the event consumers
+        eventPublisher.publishStatusChange(appointment, oldStatus, Role.CUSTOMER);
+    }
+
+    // Employee: Set an appointment's status (null leaves it unchanged)
+    @Transactional
+    public Appointment updateStatusByEmployee(Long appointmentId, AppointmentStatus status) {
+        Appointment appointment = appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new RuntimeException("Appointment not found with id: " + appointmentId));
 
-        // Notify admins about cancellation
-        notificationService.notifyAdmins(
-                appointmentId,
-                "Appointment Cancelled by Customer",
-                "Customer " + appointment.getUser().getFirstName() + " " +
-                appointment.getUser().getLastName() + " cancelled appointment for " +
-                appointment.getVehicleBrand() + " " + appointment.getModel(),
-                NotificationType.APPOINTMENT_CANCELLED
-        );
-
-        // Notify assigned employee if exists
-        if (appointment.getAssignedEmployeeId() != null) {
-            notificationService.notifyEmployee(
-                    appointment.getAssignedEmployeeId(),
-                    appointmentId,
-                    "Appointment Cancelled",
-                    "The appointment for " + appointment.getVehicleBrand() + " " +
-                    appointment.getModel() + " has been cancelled by the customer.",
-                    NotificationType.APPOINTMENT_CANCELLED
-            );
+        AppointmentStatus oldStatus = appointment.getStatus();
+        if (status != null) {
+            appointment.setStatus(status);
         }
+
+        // updatedAt timestamp will be automatically set by @UpdateTimestamp
+        Appointment updated = appointmentRepository.save(appointment);
+        syncBookingState(updated, oldStatus);
+
+        // Record the change; notifications are sent by the event consumers
+        eventPublisher.publishStatusChange(updated, oldStatus, Role.EMPLOYEE);
+        return updated;
     }
 
     // Employee: Get appointments assigned to employee
@@ -304,9 +563,26 @@ public class AppointmentService {
                 .build();
     }
 
-    // Get booked time slots for a specific date
+    // Earliest time from the given moment at which a bay is free for the whole service duration
+    public ScheduleWindowResponse findNextAvailableWindow(String serviceType, LocalDateTime from) {
+        com.example.demo.model.Service service = serviceType != null
+                ? serviceRepository.findFirstByServiceName(serviceType).orElse(null)
+                : null;
+        return resourceScheduler.nextFreeWindow(from, service != null ? service.getEstimatedDuration() : null)
+                .orElseThrow(() -> new ResourceNotFoundException("No free time found in the coming days"));
+    }
+
+    // Time slots taken by a date's bookings, as the bookings stored them, from the bay schedule
     public List<String> getBookedTimeSlots(LocalDate date) {
-        return appointmentRepository.findBookedTimeSlotsByDate(date);
+        return resourceScheduler.bookedSlots(date);
+    }
+
+    // Grid start times of a date that cannot take the service (default duration without one), from the bay schedule
+    public List<String> getBlockedTimeSlots(LocalDate date, String serviceType) {
+        com.example.demo.model.Service service = serviceType != null
+                ? serviceRepository.findFirstByServiceName(serviceType).orElse(null)
+                : null;
+        return resourceScheduler.blockedSlots(date, service != null ? service.getEstimatedDuration() : null);
     }
 }
 
@@ -0,0 +1,59 @@
+package com.example.demo.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped locks used to serialize bookings that compete for the same resource
+ * (the service bays of a date) on this node.
+ *
+ * Keys are hashed onto a fixed set of stripes, so unrelated bookings almost never
+ * wait on each other and memory stays constant however many dates are booked.
+ * With a single bay, cross-node races are caught by the unique index created in
+ * DatabaseInitializer; service capacity is enforced by the atomic service_capacity upsert.
+ */
+@Component
+public class BookingLocks {
+
+    private static final int STRIPES = 256;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public BookingLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Run the action while holding the stripes of all given keys.
+     * Stripes are always taken in ascending order, so callers cannot deadlock.
+     */
+    public <T> T withLocks(Supplier<T> action, Object... keys) {
+        int[] stripes = Arrays.stream(keys)
+                .mapToInt(BookingLocks::stripeOf)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+        }
+        try {
+            return action.get();
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                locks[stripes[i]].unlock();
+            }
+        }
+    }
+
+    private static int stripeOf(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return h & (STRIPES - 1);
+    }
+}
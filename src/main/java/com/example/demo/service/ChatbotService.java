@@ -5,9 +5,16 @@ import com.example.demo.model.ChatMessage;
 import com.example.demo.model.User;
 import com.example.demo.repository.ChatMessageRepository;
 import com.example.demo.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.demo.service.chatbot.ChatContextBuilder;
+import com.example.demo.service.chatbot.ChatResponseCache;
+import com.example.demo.service.chatbot.ChatStreamRelay;
+import com.example.demo.service.chatbot.KnowledgeIndex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -16,22 +23,39 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ChatbotService {
 
+    // Bump when SYSTEM_PROMPT changes, so cached replies to the old prompt are not reused
+    private static final String SYSTEM_PROMPT_VERSION = "1";
+    private static final String SYSTEM_PROMPT = "You are a helpful assistant for ASMS (Automotive Service Management System). Provide clear, concise, and accurate responses about vehicle services, appointments, and automotive maintenance.";
+
     private final ChatMessageRepository chatMessageRepository;
     private final UserRepository userRepository;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final ChatContextBuilder chatContextBuilder;
+    private final ChatResponseCache responseCache;
+    private final KnowledgeIndex knowledgeIndex;
+    private final RestTemplate restTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor executor;
 
     @Value("${openrouter.api.key}")
     private String apiKey;
@@ -45,93 +69,279 @@ public class ChatbotService {
     @Value("${chatbot.test.mode:false}")
     private boolean testMode;
 
+    // How long the upstream may take to start answering a streamed request
+    @Value("${http.client.read-timeout-ms:60000}")
+    private long readTimeoutMs;
+
+    @Value("${chatbot.stream.timeout-ms:120000}")
+    private long streamTimeoutMs;
+
+    @Value("${chatbot.knowledge.top-k:3}")
+    private int knowledgeTopK;
+
+    // Hits scoring lower are not worth putting in the prompt
+    @Value("${chatbot.knowledge.min-score:2.0}")
+    private double knowledgeMinScore;
+
+    // Answer with the stored answer, without the model, at or above this confidence
+    @Value("${chatbot.knowledge.direct-confidence:0.75}")
+    private double directConfidence;
+
+    @Value("${chatbot.knowledge.snippet-chars:400}")
+    private int snippetChars;
+
+    public ChatbotService(ChatMessageRepository chatMessageRepository,
+                          UserRepository userRepository,
+                          ChatContextBuilder chatContextBuilder,
+                          ChatResponseCache responseCache,
+                          KnowledgeIndex knowledgeIndex,
+                          RestTemplate restTemplate,
+                          TransactionTemplate transactionTemplate,
+                          HttpClient httpClient,
+                          ObjectMapper objectMapper,
+                          @Qualifier("chatbotExecutor") ThreadPoolTaskExecutor executor) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.userRepository = userRepository;
+        this.chatContextBuilder = chatContextBuilder;
+        this.responseCache = responseCache;
+        this.knowledgeIndex = knowledgeIndex;
+        this.restTemplate = restTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+    }
+
     /**
-     * Send a message to the chatbot and get a response
+     * Send a message to the chatbot and get a response. Runs in three steps so no database
+     * connection is held while waiting for the model: a short read transaction for the user
+     * and context, the OpenRouter call, and a short write transaction for the reply.
      */
-    @Transactional
     public ChatResponse sendMessage(ChatRequest request) {
         log.info("Processing chat message: {}", request.getMessage());
 
-        User user;
+        // Generate session ID if not provided
+        String sessionId = request.getSessionId() == null || request.getSessionId().isEmpty()
+                ? UUID.randomUUID().toString()
+                : request.getSessionId();
+
+        Knowledge knowledge = consultKnowledge(request.getMessage());
+        Prepared prepared = prepare(request, sessionId, knowledge.systemPrompt());
+
+        // Remote: no transaction and no connection held from here on
+        Completion completion;
+        if (testMode) {
+            // TEST MODE: Return mock responses without calling external API
+            log.info("TEST MODE: Returning mock response for user: {}", prepared.user().getEmail());
+            completion = new Completion(generateMockResponse(request.getMessage()), 0);
+        } else if (knowledge.direct() != null) {
+            log.info("Answering from knowledge base entry {}", knowledge.direct().id());
+            completion = new Completion(knowledge.direct().answer(), 0);
+        } else {
+            String cacheKey = cacheKey(prepared, request);
+            Optional<ChatResponseCache.Reply> cached = cacheKey != null ? responseCache.get(cacheKey) : Optional.empty();
+            if (cached.isPresent()) {
+                // Served without a model call, so it cost no tokens this time
+                completion = new Completion(cached.get().content(), 0);
+            } else {
+                completion = callOpenRouter(prepared.messages());
+                if (cacheKey != null && completion.complete()) {
+                    responseCache.put(cacheKey, new ChatResponseCache.Reply(completion.content(), completion.tokensUsed()));
+                }
+            }
+        }
+
+        // Write
+        saveReply(prepared.user(), sessionId, request.getMessage(), completion);
+
+        return ChatResponse.builder()
+                .response(completion.content())
+                .sessionId(sessionId)
+                .timestamp(LocalDateTime.now())
+                .tokensUsed(completion.tokensUsed())
+                .build();
+    }
+
+    /**
+     * Streaming variant of sendMessage: the reply goes to the client as server-sent events
+     * while the model writes it (see ChatStreamRelay). The request is async, so no servlet
+     * thread waits on the model, and the finished reply is stored in the background.
+     */
+    public SseEmitter streamMessage(ChatRequest request) {
+        log.info("Processing streamed chat message: {}", request.getMessage());
+
+        String sessionId = request.getSessionId() == null || request.getSessionId().isEmpty()
+                ? UUID.randomUUID().toString()
+                : request.getSessionId();
+        Knowledge knowledge = consultKnowledge(request.getMessage());
+        Prepared prepared = prepare(request, sessionId, knowledge.systemPrompt());
+
+        String cacheKey = knowledge.systemPrompt() == null ? null : cacheKey(prepared, request);
+        Optional<ChatResponseCache.Reply> cached = cacheKey != null ? responseCache.get(cacheKey) : Optional.empty();
+        String storeKey = cached.isPresent() ? null : cacheKey;
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        ChatStreamRelay relay = new ChatStreamRelay(emitter, objectMapper, sessionId, reply -> {
+            saveReplyLater(prepared.user(), sessionId, request.getMessage(), new Completion(reply.content(), reply.tokensUsed()));
+            // A reply cut short would be served whole to everyone asking the same question
+            if (storeKey != null && reply.complete()) {
+                responseCache.put(storeKey, new ChatResponseCache.Reply(reply.content(), reply.tokensUsed()));
+            }
+        });
+
+        if (testMode) {
+            relay.complete(generateMockResponse(request.getMessage()), 0);
+            return emitter;
+        }
+        if (knowledge.direct() != null) {
+            log.info("Answering from knowledge base entry {}", knowledge.direct().id());
+            relay.complete(knowledge.direct().answer(), 0);
+            return emitter;
+        }
+        if (cached.isPresent()) {
+            relay.complete(cached.get().content(), 0);
+            return emitter;
+        }
+
+        OpenRouterRequest openRouterRequest = OpenRouterRequest.builder()
+                .model(model)
+                .messages(prepared.messages())
+                .maxTokens(1000)
+                .temperature(0.7)
+                .stream(true)
+                .streamOptions(new OpenRouterRequest.StreamOptions(true))
+                .build();
+
+        HttpRequest httpRequest;
         try {
-            user = getCurrentUser();
-            log.info("User found: {}", user.getEmail());
-        } catch (Exception e) {
-            log.error("Error getting current user: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to get current user: " + e.getMessage(), e);
+            httpRequest = HttpRequest.newBuilder(URI.create(apiUrl))
+                    .timeout(Duration.ofMillis(readTimeoutMs))
+                    .header("Authorization", "Bearer " + apiKey)
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "text/event-stream")
+                    .header("HTTP-Referer", "http://localhost:8080")
+                    .header("X-Title", "ASMS Chatbot")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(openRouterRequest)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to prepare chatbot request: " + e.getMessage(), e);
         }
 
-        // Generate session ID if not provided
-        String sessionId = request.getSessionId();
-        if (sessionId == null || sessionId.isEmpty()) {
-            sessionId = UUID.randomUUID().toString();
+        log.info("Streaming request to OpenRouter API: {}", apiUrl);
+        httpClient.sendAsync(httpRequest, relay.bodyHandler())
+                .whenComplete((response, e) -> {
+                    if (e != null) {
+                        log.error("Error calling OpenRouter API: {}", e.getMessage());
+                        relay.fail("Connection to AI service timed out. Please check your internet connection.");
+                    }
+                });
+        return emitter;
+    }
+
+    private record Prepared(User user, List<OpenRouterRequest.Message> messages) {
+    }
+
+    // complete is false for a reply the model stopped at the token limit
+    private record Completion(String content, Integer tokensUsed, boolean complete) {
+        Completion(String content, Integer tokensUsed) {
+            this(content, tokensUsed, true);
         }
+    }
+
+    // An FAQ answer to give as is, or the system prompt for the model; neither in test mode
+    private record Knowledge(KnowledgeIndex.Hit direct, String systemPrompt) {
+    }
 
-        // TEST MODE: Return mock responses without calling external API
+    /**
+     * Look the message up in the FAQs and published questions. A close match to an FAQ is
+     * answered directly; otherwise the best matches go into the system prompt so the model
+     * answers from them. Runs in memory, outside any transaction.
+     */
+    private Knowledge consultKnowledge(String message) {
         if (testMode) {
+            return new Knowledge(null, null);
+        }
+        List<KnowledgeIndex.Hit> hits = knowledgeIndex.search(message, knowledgeTopK).stream()
+                .filter(hit -> hit.score() >= knowledgeMinScore)
+                .toList();
+        Optional<KnowledgeIndex.Hit> direct = hits.stream()
+                .filter(hit -> hit.isFaq() && hit.confidence() >= directConfidence)
+                .findFirst();
+        if (direct.isPresent()) {
+            return new Knowledge(direct.get(), null);
+        }
+        if (hits.isEmpty()) {
+            return new Knowledge(null, SYSTEM_PROMPT);
+        }
+
+        StringBuilder prompt = new StringBuilder(SYSTEM_PROMPT)
+                .append("\n\nAnswers from the ASMS help desk. Use them when they fit the question:");
+        for (KnowledgeIndex.Hit hit : hits) {
+            prompt.append("\nQ: ").append(hit.question())
+                    .append("\nA: ").append(abbreviate(hit.answer(), snippetChars));
+        }
+        return new Knowledge(null, prompt.toString());
+    }
+
+    private static String abbreviate(String text, int maxChars) {
+        return text.length() <= maxChars ? text : text.substring(0, maxChars).trim() + "...";
+    }
+
+    // Opening questions only: with earlier turns in the context the answer may depend on them.
+    // The index version is part of the key, as the prompt may carry indexed answers.
+    private String cacheKey(Prepared prepared, ChatRequest request) {
+        boolean opening = prepared.messages().size() == 2;
+        String promptVersion = SYSTEM_PROMPT_VERSION + "." + knowledgeIndex.getVersion();
+        return opening ? ChatResponseCache.key(promptVersion, model, request.getMessage()) : null;
+    }
+
+    // Read: the user, and the context when the model will be asked (systemPrompt is set)
+    private Prepared prepare(ChatRequest request, String sessionId, String systemPrompt) {
+        return transactionTemplate.execute(status -> {
+            User user;
             try {
-                log.info("TEST MODE: Returning mock response for user: {}", user.getEmail());
-                String mockResponse = generateMockResponse(request.getMessage());
-
-                // Save to database
-                ChatMessage chatMessage = ChatMessage.builder()
-                        .user(user)
-                        .sessionId(sessionId)
-                        .message(request.getMessage())
-                        .response(mockResponse)
-                        .tokensUsed(0)
-                        .timestamp(LocalDateTime.now())
-                        .build();
-
-                chatMessageRepository.save(chatMessage);
-                log.info("Chat message saved successfully");
-
-                return ChatResponse.builder()
-                        .response(mockResponse)
-                        .sessionId(sessionId)
-                        .timestamp(LocalDateTime.now())
-                        .tokensUsed(0)
-                        .build();
+                user = getCurrentUser();
+                log.info("User found: {}", user.getEmail());
             } catch (Exception e) {
-                log.error("Error in test mode: {}", e.getMessage(), e);
-                throw new RuntimeException("Failed to process chat message in test mode: " + e.getMessage(), e);
+                log.error("Error getting current user: {}", e.getMessage(), e);
+                throw new RuntimeException("Failed to get current user: " + e.getMessage(), e);
             }
-        }
+            // System prompt, the latest turns that fit the token budget, and the new message
+            List<OpenRouterRequest.Message> messages = systemPrompt == null
+                    ? List.of()
+                    : chatContextBuilder.build(user, sessionId, systemPrompt, request.getMessage());
+            return new Prepared(user, messages);
+        });
+    }
 
-        // Get chat history for context (last 10 messages from this session)
-        List<ChatMessage> history = chatMessageRepository
-                .findByUserAndSessionIdOrderByTimestampAsc(user, sessionId)
-                .stream()
-                .limit(10)
-                .collect(Collectors.toList());
+    private void saveReply(User user, String sessionId, String message, Completion completion) {
+        ChatMessage chatMessage = ChatMessage.builder()
+                .user(user)
+                .sessionId(sessionId)
+                .message(message)
+                .response(completion.content())
+                .tokensUsed(completion.tokensUsed())
+                .timestamp(LocalDateTime.now())
+                .build();
+        transactionTemplate.executeWithoutResult(status -> chatMessageRepository.save(chatMessage));
+    }
 
-        // Build messages for OpenRouter API
-        List<OpenRouterRequest.Message> messages = new ArrayList<>();
-
-        // Add system message
-        messages.add(OpenRouterRequest.Message.builder()
-                .role("system")
-                .content("You are a helpful assistant for ASMS (Automotive Service Management System). Provide clear, concise, and accurate responses about vehicle services, appointments, and automotive maintenance.")
-                .build());
-
-        // Add conversation history
-        for (ChatMessage msg : history) {
-            messages.add(OpenRouterRequest.Message.builder()
-                    .role("user")
-                    .content(msg.getMessage())
-                    .build());
-            messages.add(OpenRouterRequest.Message.builder()
-                    .role("assistant")
-                    .content(msg.getResponse())
-                    .build());
+    // Streamed replies finish on the HTTP client's threads, which must not wait on the database
+    private void saveReplyLater(User user, String sessionId, String message, Completion completion) {
+        try {
+            executor.execute(() -> {
+                try {
+                    saveReply(user, sessionId, message, completion);
+                } catch (Exception e) {
+                    log.error("Could not save streamed chat reply for session {}: {}", sessionId, e.getMessage(), e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.error("Chat reply queue is full, streamed reply for session {} was not saved", sessionId);
         }
+    }
 
-        // Add current message
-        messages.add(OpenRouterRequest.Message.builder()
-                .role("user")
-                .content(request.getMessage())
-                .build());
-
+    private Completion callOpenRouter(List<OpenRouterRequest.Message> messages) {
         // Prepare OpenRouter request
         OpenRouterRequest openRouterRequest = OpenRouterRequest.builder()
                 .model(model)
@@ -165,25 +375,8 @@ public class ChatbotService {
             String aiResponse = response.getBody().getChoices().get(0).getMessage().getContent();
             Integer tokensUsed = response.getBody().getUsage() != null ?
                     response.getBody().getUsage().getTotalTokens() : null;
-
-            // Save to database
-            ChatMessage chatMessage = ChatMessage.builder()
-                    .user(user)
-                    .sessionId(sessionId)
-                    .message(request.getMessage())
-                    .response(aiResponse)
-                    .tokensUsed(tokensUsed)
-                    .timestamp(LocalDateTime.now())
-                    .build();
-
-            chatMessageRepository.save(chatMessage);
-
-            return ChatResponse.builder()
-                    .response(aiResponse)
-                    .sessionId(sessionId)
-                    .timestamp(LocalDateTime.now())
-                    .tokensUsed(tokensUsed)
-                    .build();
+            boolean complete = !"length".equals(response.getBody().getChoices().get(0).getFinishReason());
+            return new Completion(aiResponse, tokensUsed, complete);
 
         } catch (Exception e) {
             log.error("Error calling OpenRouter API: {}", e.getMessage(), e);
@@ -195,7 +388,8 @@ public class ChatbotService {
                     errorMessage = "API authentication failed. Please check your OpenRouter API key.";
                 } else if (e.getMessage().contains("429")) {
                     errorMessage = "API rate limit exceeded. Please try again later.";
-                } else if (e.getMessage().contains("timeout") || e.getMessage().contains("Connection")) {
+                } else if (e.getMessage().contains("timeout") || e.getMessage().contains("timed out")
+                        || e.getMessage().contains("Connection")) {
                     errorMessage = "Connection to AI service timed out. Please check your internet connection.";
                 } else if (e.getMessage().contains("Empty response")) {
                     errorMessage = "AI service returned an empty response. The model might be unavailable.";
@@ -0,0 +1,113 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.AppointmentSummaryDTO;
+import com.example.demo.dto.CustomerOverviewResponse;
+import com.example.demo.dto.projects.ProjectResponse;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.User;
+import com.example.demo.model.projects.ModificationRequest;
+import com.example.demo.repository.AppointmentRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.projects.ModificationRequestService;
+import com.example.demo.service.projects.ProjectService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Builds the customer dashboard in one request. The user is resolved once, then the
+ * appointment, notification, project and modification lookups run in parallel on a
+ * bounded executor. Each section has a time budget; a section that fails or runs over
+ * is left empty and listed in unavailableSections instead of stalling the page.
+ */
+@Service
+@Slf4j
+public class CustomerOverviewService {
+
+    private final UserRepository userRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final NotificationService notificationService;
+    private final ProjectService projectService;
+    private final ModificationRequestService modificationRequestService;
+    private final ThreadPoolTaskExecutor executor;
+
+    @Value("${customer.overview.section-timeout-ms:800}")
+    private long sectionTimeoutMs;
+
+    public CustomerOverviewService(UserRepository userRepository,
+                                   AppointmentRepository appointmentRepository,
+                                   NotificationService notificationService,
+                                   ProjectService projectService,
+                                   ModificationRequestService modificationRequestService,
+                                   @Qualifier("overviewExecutor") ThreadPoolTaskExecutor executor) {
+        this.userRepository = userRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.notificationService = notificationService;
+        this.projectService = projectService;
+        this.modificationRequestService = modificationRequestService;
+        this.executor = executor;
+    }
+
+    public CustomerOverviewResponse getOverview(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        Long userId = user.getId();
+
+        CompletableFuture<List<AppointmentSummaryDTO>> appointments =
+                submit(() -> appointmentRepository.findSummariesByUserId(userId));
+        CompletableFuture<Long> unread =
+                submit(() -> notificationService.getUnreadCount(userId));
+        CompletableFuture<List<ProjectResponse>> projects =
+                submit(() -> projectService.getProjectsByCustomerId(userId));
+        CompletableFuture<List<ModificationRequest>> modifications =
+                submit(() -> modificationRequestService.getModificationRequestsByCustomerId(userId));
+
+        // All sections run at the same time, so they share one deadline
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMs);
+        List<String> unavailable = new ArrayList<>();
+
+        return CustomerOverviewResponse.builder()
+                .customerId(userId)
+                .appointments(await(appointments, "appointments", deadline, unavailable))
+                .unreadNotifications(await(unread, "unreadNotifications", deadline, unavailable))
+                .projects(await(projects, "projects", deadline, unavailable))
+                .modificationRequests(await(modifications, "modificationRequests", deadline, unavailable))
+                .unavailableSections(unavailable)
+                .build();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> section) {
+        try {
+            return CompletableFuture.supplyAsync(section, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> future, String section, long deadline, List<String> unavailable) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            return future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Customer overview section '{}' exceeded {} ms", section, sectionTimeoutMs);
+            future.cancel(true);
+        } catch (ExecutionException e) {
+            log.error("Customer overview section '{}' failed: {}", section, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        unavailable.add(section);
+        return null;
+    }
+}
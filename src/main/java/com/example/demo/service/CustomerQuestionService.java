@@ -4,6 +4,7 @@ import com.example.demo.dto.AnswerQuestionRequest;
 import com.example.demo.dto.CustomerQuestionRequest;
 import com.example.demo.model.CustomerQuestion;
 import com.example.demo.repository.CustomerQuestionRepository;
+import com.example.demo.service.chatbot.KnowledgeIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,6 +19,9 @@ public class CustomerQuestionService {
     @Autowired
     private CustomerQuestionRepository customerQuestionRepository;
 
+    @Autowired
+    private KnowledgeIndex knowledgeIndex;
+
     // Get all customer questions
     public List<CustomerQuestion> getAllQuestions() {
         return customerQuestionRepository.findAllByOrderByCreatedAtDesc();
@@ -81,7 +85,21 @@ public class CustomerQuestionService {
         question.setAnswer(request.getAnswer());
         question.setAnsweredAt(LocalDateTime.now());
         question.setIsResolved(true);
-        return customerQuestionRepository.save(question);
+        CustomerQuestion saved = customerQuestionRepository.save(question);
+        knowledgeIndex.questionChanged(saved);
+        return saved;
+    }
+
+    // Publish or withdraw a question's answer as chatbot knowledge
+    @Transactional
+    public CustomerQuestion setPublished(Long id, boolean published) {
+        CustomerQuestion question = customerQuestionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Question not found with id: " + id));
+
+        question.setIsPublished(published);
+        CustomerQuestion saved = customerQuestionRepository.save(question);
+        knowledgeIndex.questionChanged(saved);
+        return saved;
     }
 
     // Mark question as unresolved
@@ -101,5 +119,6 @@ public class CustomerQuestionService {
             throw new RuntimeException("Question not found with id: " + id);
         }
         customerQuestionRepository.deleteById(id);
+        knowledgeIndex.questionDeleted(id);
     }
 }
@@ -0,0 +1,285 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Appointment;
+import com.example.demo.model.AppointmentStatus;
+import com.example.demo.repository.AppointmentRepository;
+import com.example.demo.repository.EmployeeServiceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory view of how many active appointments each employee has, used to
+ * auto-assign appointments to the least-loaded qualified employee.
+ *
+ * Every service keeps a min-heap of the employees who can do it (their EmployeeService
+ * skills), ordered by load. Picking an employee is a peek, and a load change re-sifts the
+ * employee in each of their skill heaps, so both are O(log n) per skill.
+ *
+ * An employee's load is the number of their assigned appointments that are not COMPLETED
+ * or CANCELLED, and only employees with at least one skill are tracked. Auto-assignment
+ * takes the load before its transaction commits, so two requests never pick the same
+ * free employee, and gives it back on rollback. Other changes are applied after commit.
+ * A full rebuild from the database every reconcile interval drops drift from other nodes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmployeeLoadBalancer {
+
+    private final EmployeeServiceRepository employeeServiceRepository;
+    private final AppointmentRepository appointmentRepository;
+
+    // Employee id -> active appointment count
+    private final Map<Long, Integer> loads = new HashMap<>();
+
+    // Employee id -> ids of services the employee can do
+    private final Map<Long, Set<Long>> skills = new HashMap<>();
+
+    // Service id -> qualified employees ordered by load
+    private final Map<Long, LoadHeap> heaps = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reconcile();
+    }
+
+    /**
+     * Rebuild skills and loads from the database
+     */
+    @Scheduled(fixedDelayString = "${employees.load.reconcile-ms:300000}", initialDelayString = "${employees.load.reconcile-ms:300000}")
+    public void reconcile() {
+        try {
+            Map<Long, Set<Long>> freshSkills = new HashMap<>();
+            for (Object[] row : employeeServiceRepository.findActiveEmployeeSkills()) {
+                freshSkills.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((Long) row[1]);
+            }
+
+            Map<Long, Integer> freshLoads = new HashMap<>();
+            for (Object[] row : appointmentRepository.countActiveLoadByEmployee()) {
+                freshLoads.put((Long) row[0], ((Long) row[1]).intValue());
+            }
+
+            load(freshSkills, freshLoads);
+            log.info("Employee load balancer loaded {} qualified employees", freshSkills.size());
+        } catch (Exception e) {
+            log.error("Failed to load employee workloads: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Replace the whole view. Employees without skills are ignored.
+     */
+    public synchronized void load(Map<Long, Set<Long>> employeeSkills, Map<Long, Integer> employeeLoads) {
+        loads.clear();
+        skills.clear();
+        heaps.clear();
+        employeeSkills.forEach((employeeId, serviceIds) -> {
+            loads.put(employeeId, employeeLoads.getOrDefault(employeeId, 0));
+            for (Long serviceId : serviceIds) {
+                addSkill(employeeId, serviceId);
+            }
+        });
+    }
+
+    /**
+     * Pick the least-loaded employee qualified for the service and count the new
+     * appointment against them. Returns null when nobody can do the service.
+     */
+    public synchronized Long takeLeastLoaded(Long serviceId) {
+        LoadHeap heap = heaps.get(serviceId);
+        Long employeeId = heap != null ? heap.peek() : null;
+        if (employeeId != null) {
+            adjust(employeeId, 1);
+        }
+        return employeeId;
+    }
+
+    /**
+     * Move an appointment's load after a manual assignment
+     */
+    public void onAssigned(Appointment appointment, Long previousEmployeeId, AppointmentStatus oldStatus) {
+        releaseLoad(previousEmployeeId, oldStatus);
+        if (appointment.getAssignedEmployeeId() != null && isActive(appointment.getStatus())) {
+            adjust(appointment.getAssignedEmployeeId(), 1);
+        }
+    }
+
+    /**
+     * Drop an appointment from the load of the employee it was taken away from
+     */
+    public void releaseLoad(Long employeeId, AppointmentStatus status) {
+        if (employeeId != null && isActive(status)) {
+            adjust(employeeId, -1);
+        }
+    }
+
+    /**
+     * Keep the assigned employee's load in step with a status change (completion, cancellation, reopening)
+     */
+    public void onStatusChange(Appointment appointment, AppointmentStatus oldStatus) {
+        Long employeeId = appointment.getAssignedEmployeeId();
+        if (employeeId == null) {
+            return;
+        }
+        boolean wasActive = isActive(oldStatus);
+        boolean nowActive = isActive(appointment.getStatus());
+        if (wasActive && !nowActive) {
+            adjust(employeeId, -1);
+        } else if (!wasActive && nowActive) {
+            adjust(employeeId, 1);
+        }
+    }
+
+    public synchronized void adjust(Long employeeId, int delta) {
+        Integer current = loads.get(employeeId);
+        if (current == null) {
+            return;  // Not qualified for any service, nothing to balance
+        }
+        loads.put(employeeId, Math.max(0, current + delta));
+        for (Long serviceId : skills.getOrDefault(employeeId, Collections.emptySet())) {
+            heaps.get(serviceId).changed(employeeId);
+        }
+    }
+
+    public synchronized void addSkill(Long employeeId, Long serviceId) {
+        loads.putIfAbsent(employeeId, 0);
+        if (skills.computeIfAbsent(employeeId, id -> new HashSet<>()).add(serviceId)) {
+            heaps.computeIfAbsent(serviceId, id -> new LoadHeap()).add(employeeId);
+        }
+    }
+
+    public synchronized void removeSkill(Long employeeId, Long serviceId) {
+        Set<Long> serviceIds = skills.get(employeeId);
+        if (serviceIds != null && serviceIds.remove(serviceId)) {
+            heaps.get(serviceId).remove(employeeId);
+        }
+    }
+
+    /**
+     * Take a deactivated employee out of every heap
+     */
+    public synchronized void removeEmployee(Long employeeId) {
+        Set<Long> serviceIds = skills.remove(employeeId);
+        if (serviceIds != null) {
+            for (Long serviceId : serviceIds) {
+                heaps.get(serviceId).remove(employeeId);
+            }
+        }
+        loads.remove(employeeId);
+    }
+
+    public synchronized Map<Long, Integer> getLoads() {
+        return new HashMap<>(loads);
+    }
+
+    public synchronized Map<Long, Set<Long>> getSkills() {
+        Map<Long, Set<Long>> copy = new HashMap<>();
+        skills.forEach((employeeId, serviceIds) -> copy.put(employeeId, new HashSet<>(serviceIds)));
+        return copy;
+    }
+
+    // Assigned appointments count as load until they are completed or cancelled
+    private static boolean isActive(AppointmentStatus status) {
+        return status != null && status != AppointmentStatus.COMPLETED && status != AppointmentStatus.CANCELLED;
+    }
+
+    /**
+     * Binary min-heap of employee ids ordered by load (ties by id), with a position
+     * index so an employee whose load changed can be re-sifted in place
+     */
+    private final class LoadHeap {
+        private long[] heap = new long[8];
+        private int size;
+        private final Map<Long, Integer> positions = new HashMap<>();
+
+        Long peek() {
+            return size == 0 ? null : heap[0];
+        }
+
+        void add(long employeeId) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            heap[size] = employeeId;
+            positions.put(employeeId, size);
+            siftUp(size++);
+        }
+
+        void remove(long employeeId) {
+            Integer i = positions.remove(employeeId);
+            if (i == null) {
+                return;
+            }
+            size--;
+            if (i != size) {
+                heap[i] = heap[size];
+                positions.put(heap[i], i);
+                siftDown(i);
+                siftUp(positions.get(heap[i]));
+            }
+        }
+
+        void changed(long employeeId) {
+            Integer i = positions.get(employeeId);
+            if (i != null) {
+                siftUp(i);
+                siftDown(positions.get(employeeId));
+            }
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!less(heap[i], heap[parent])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                int right = left + 1;
+                int smallest = i;
+                if (left < size && less(heap[left], heap[smallest])) {
+                    smallest = left;
+                }
+                if (right < size && less(heap[right], heap[smallest])) {
+                    smallest = right;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private boolean less(long a, long b) {
+            int loadA = loads.get(a);
+            int loadB = loads.get(b);
+            return loadA < loadB || (loadA == loadB && a < b);
+        }
+
+        private void swap(int i, int j) {
+            long tmp = heap[i];
+            heap[i] = heap[j];
+            heap[j] = tmp;
+            positions.put(heap[i], i);
+            positions.put(heap[j], j);
+        }
+    }
+}
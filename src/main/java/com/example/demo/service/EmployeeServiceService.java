@@ -2,6 +2,7 @@ package com.example.demo.service;
 
 import com.example.demo.dto.AssignedServiceDTO;
 import com.example.demo.dto.AppointmentDTO;
+import com.example.demo.dto.EmployeeLoadResponse;
 import com.example.demo.model.EmployeeService;
 import com.example.demo.model.Service;
 import com.example.demo.model.User;
@@ -11,7 +12,11 @@ import com.example.demo.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @org.springframework.stereotype.Service
@@ -22,6 +27,7 @@ public class EmployeeServiceService {
     private final ServiceRepository serviceRepository;
     private final EmployeeServiceRepository employeeServiceRepository;
     private final AppointmentService appointmentService;
+    private final EmployeeLoadBalancer employeeLoadBalancer;
 
     /**
      * Get all services assigned to an employee (by username)
@@ -83,6 +89,9 @@ public class EmployeeServiceService {
                 .build();
 
         employeeServiceRepository.save(employeeService);
+        if (Boolean.TRUE.equals(employee.getIsActive())) {
+            employeeLoadBalancer.addSkill(employeeId, serviceId);
+        }
     }
 
     /**
@@ -95,6 +104,7 @@ public class EmployeeServiceService {
                 .orElseThrow(() -> new RuntimeException("Service assignment not found"));
 
         employeeServiceRepository.delete(employeeService);
+        employeeLoadBalancer.removeSkill(employeeId, serviceId);
     }
 
     /**
@@ -119,5 +129,29 @@ public class EmployeeServiceService {
                         .build())
                 .collect(Collectors.toList());
     }
-}
 
+    /**
+     * Current auto-assignment load and skills of every qualified employee, least loaded first
+     */
+    @Transactional(readOnly = true)
+    public List<EmployeeLoadResponse> getEmployeeLoads() {
+        Map<Long, Integer> loads = employeeLoadBalancer.getLoads();
+        Map<Long, Set<Long>> skills = employeeLoadBalancer.getSkills();
+        Map<Long, User> employees = userRepository.findAllById(loads.keySet()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        return loads.entrySet().stream()
+                .map(entry -> {
+                    User employee = employees.get(entry.getKey());
+                    return EmployeeLoadResponse.builder()
+                            .employeeId(entry.getKey())
+                            .employeeName(employee != null ? employee.getFirstName() + " " + employee.getLastName() : null)
+                            .activeAppointments(entry.getValue())
+                            .serviceIds(skills.getOrDefault(entry.getKey(), Set.of()))
+                            .build();
+                })
+                .sorted(Comparator.comparingInt(EmployeeLoadResponse::getActiveAppointments)
+                        .thenComparing(EmployeeLoadResponse::getEmployeeId))
+                .collect(Collectors.toList());
+    }
+}
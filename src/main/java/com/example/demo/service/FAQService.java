@@ -3,6 +3,7 @@ package com.example.demo.service;
 import com.example.demo.dto.FAQRequest;
 import com.example.demo.model.FAQ;
 import com.example.demo.repository.FAQRepository;
+import com.example.demo.service.chatbot.KnowledgeIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,6 +17,9 @@ public class FAQService {
     @Autowired
     private FAQRepository faqRepository;
 
+    @Autowired
+    private KnowledgeIndex knowledgeIndex;
+
     // Get all active FAQs for customers
     public List<FAQ> getAllActiveFAQs() {
         return faqRepository.findByIsActiveTrueOrderByCreatedAtDesc();
@@ -40,7 +44,9 @@ public class FAQService {
         faq.setAnswer(request.getAnswer());
         faq.setIsActive(true);
         faq.setDisplayOrder(request.getDisplayOrder());
-        return faqRepository.save(faq);
+        FAQ saved = faqRepository.save(faq);
+        knowledgeIndex.faqChanged(saved);
+        return saved;
     }
 
     // Update FAQ
@@ -56,7 +62,9 @@ public class FAQService {
             faq.setDisplayOrder(request.getDisplayOrder());
         }
         
-        return faqRepository.save(faq);
+        FAQ saved = faqRepository.save(faq);
+        knowledgeIndex.faqChanged(saved);
+        return saved;
     }
 
     // Toggle FAQ active status
@@ -66,7 +74,9 @@ public class FAQService {
                 .orElseThrow(() -> new RuntimeException("FAQ not found with id: " + id));
         
         faq.setIsActive(!faq.getIsActive());
-        return faqRepository.save(faq);
+        FAQ saved = faqRepository.save(faq);
+        knowledgeIndex.faqChanged(saved);
+        return saved;
     }
 
     // Delete FAQ
@@ -76,5 +86,6 @@ public class FAQService {
             throw new RuntimeException("FAQ not found with id: " + id);
         }
         faqRepository.deleteById(id);
+        knowledgeIndex.faqDeleted(id);
     }
 }
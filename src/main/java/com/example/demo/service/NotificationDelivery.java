@@ -0,0 +1,220 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.NotificationDeliveryStatsResponse;
+import com.example.demo.dto.WebSocketNotificationMessage;
+import com.example.demo.service.compact.CompactNotificationPublisher;
+import com.example.demo.service.relay.MessageRelay;
+import com.example.demo.service.stream.NotificationStreamPublisher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.messaging.MessagingException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes notifications to WebSocket clients off the caller's thread. Inside a transaction
+ * messages are held until it commits and discarded if it rolls back, so clients never see a
+ * notification that was not stored. Sending runs on a small bounded executor; messages for
+ * a destination that pile up while its send is waiting or running are sent together next.
+ * A destination has at most one send in flight, so its messages go out, and are numbered,
+ * in the order they were accepted.
+ *
+ * Every message still goes out in its own frame on its destination, so existing subscribers
+ * see the same payloads as always. Clients that want fewer frames subscribe to the
+ * destination + MessageRelay.BATCH_SUFFIX instead, which gets each batch as one JSON array.
+ * Messages are numbered and kept for reconnect replay just before they are sent, and also
+ * go to the clients on the compact endpoint and the event stream.
+ */
+@Component
+@Slf4j
+public class NotificationDelivery {
+
+    private record Outgoing(String destination, WebSocketNotificationMessage message) {
+    }
+
+    private final MessageRelay messageRelay;
+    private final NotificationReplayBuffer replayBuffer;
+    private final CompactNotificationPublisher compactPublisher;
+    private final NotificationStreamPublisher streamPublisher;
+    private final ThreadPoolTaskExecutor executor;
+
+    @Value("${notifications.delivery.max-pending-per-destination:100}")
+    private int maxPendingPerDestination;
+
+    // Messages waiting per destination; a destination is in the map only while a send task is scheduled
+    // or running, and an empty queue marks a send in flight that nothing has queued behind yet
+    private final Map<String, ArrayDeque<WebSocketNotificationMessage>> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public NotificationDelivery(MessageRelay messageRelay,
+                                NotificationReplayBuffer replayBuffer,
+                                CompactNotificationPublisher compactPublisher,
+                                NotificationStreamPublisher streamPublisher,
+                                @Qualifier("notificationExecutor") ThreadPoolTaskExecutor executor) {
+        this.messageRelay = messageRelay;
+        this.replayBuffer = replayBuffer;
+        this.compactPublisher = compactPublisher;
+        this.streamPublisher = streamPublisher;
+        this.executor = executor;
+    }
+
+    /**
+     * Send a message to a destination once the current transaction commits,
+     * or right away when there is no transaction.
+     */
+    public void send(String destination, WebSocketNotificationMessage message) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(List.of(new Outgoing(destination, message)));
+            return;
+        }
+        transactionBuffer().add(new Outgoing(destination, message));
+    }
+
+    public NotificationDeliveryStatsResponse getStats() {
+        return NotificationDeliveryStatsResponse.builder()
+                .accepted(accepted.sum())
+                .discarded(discarded.sum())
+                .delivered(delivered.sum())
+                .frames(frames.sum())
+                .dropped(dropped.sum())
+                .rejected(rejected.sum())
+                .failed(failed.sum())
+                .pendingDestinations(pending.size())
+                .executorQueueSize(executor.getThreadPoolExecutor().getQueue().size())
+                .compactSessions(compactPublisher.getSessionCount())
+                .compactFrames(compactPublisher.getFrames())
+                .compactBytes(compactPublisher.getBytes())
+                .streamConnections(streamPublisher.getConnectionCount())
+                .streamEvents(streamPublisher.getEvents())
+                .build();
+    }
+
+    // One buffer per transaction, handed over as a whole after commit so its messages coalesce
+    @SuppressWarnings("unchecked")
+    private List<Outgoing> transactionBuffer() {
+        List<Outgoing> buffer = (List<Outgoing>) TransactionSynchronizationManager.getResource(this);
+        if (buffer != null) {
+            return buffer;
+        }
+
+        List<Outgoing> created = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(NotificationDelivery.this);
+                if (status == STATUS_COMMITTED) {
+                    enqueue(created);
+                } else {
+                    discarded.add(created.size());
+                }
+            }
+        });
+        return created;
+    }
+
+    private void enqueue(List<Outgoing> messages) {
+        Map<String, List<WebSocketNotificationMessage>> byDestination = new LinkedHashMap<>();
+        for (Outgoing outgoing : messages) {
+            byDestination.computeIfAbsent(outgoing.destination(), d -> new ArrayList<>()).add(outgoing.message());
+        }
+        accepted.add(messages.size());
+
+        byDestination.forEach((destination, batch) -> {
+            boolean[] created = new boolean[1];
+            pending.compute(destination, (d, queue) -> {
+                if (queue == null) {
+                    queue = new ArrayDeque<>();
+                    created[0] = true;
+                }
+                for (WebSocketNotificationMessage message : batch) {
+                    // A client this far behind reloads over REST anyway, so keep only the newest
+                    if (queue.size() >= maxPendingPerDestination) {
+                        queue.pollFirst();
+                        dropped.increment();
+                    }
+                    queue.addLast(message);
+                }
+                return queue;
+            });
+            // Only the first message schedules a send; later ones ride along with it
+            if (created[0]) {
+                schedule(destination);
+            }
+        });
+    }
+
+    private void schedule(String destination) {
+        try {
+            executor.execute(() -> flush(destination));
+        } catch (TaskRejectedException e) {
+            ArrayDeque<WebSocketNotificationMessage> lost = pending.remove(destination);
+            rejected.increment();
+            if (lost != null) {
+                dropped.add(lost.size());
+                log.warn("Notification delivery queue is full, dropped {} message(s) for {}", lost.size(), destination);
+            }
+        }
+    }
+
+    private void flush(String destination) {
+        // Take the queued messages but leave the destination in the map, so messages arriving
+        // during the send wait for it instead of scheduling a second, concurrent one
+        List<ArrayDeque<WebSocketNotificationMessage>> taken = new ArrayList<>(1);
+        pending.computeIfPresent(destination, (d, queue) -> {
+            taken.add(queue);
+            return new ArrayDeque<>();
+        });
+        if (taken.isEmpty()) {
+            return;
+        }
+
+        ArrayDeque<WebSocketNotificationMessage> batch = taken.get(0);
+        try {
+            if (!batch.isEmpty()) {
+                send(destination, batch);
+            }
+        } finally {
+            // Done; follow up with what arrived meanwhile, or let the next message schedule a send
+            if (pending.computeIfPresent(destination, (d, queue) -> queue.isEmpty() ? null : queue) != null) {
+                schedule(destination);
+            }
+        }
+    }
+
+    private void send(String destination, ArrayDeque<WebSocketNotificationMessage> batch) {
+        try {
+            for (WebSocketNotificationMessage message : batch) {
+                replayBuffer.record(destination, message);
+            }
+            messageRelay.sendBatch(destination, new ArrayList<>(batch));
+            frames.increment();
+            delivered.add(batch.size());
+        } catch (MessagingException | DataAccessException e) {
+            failed.add(batch.size());
+            log.warn("Could not push {} notification(s) to {}: {}", batch.size(), destination, e.getMessage());
+        }
+        compactPublisher.publish(destination, batch);
+        streamPublisher.publish(destination, batch);
+    }
+}
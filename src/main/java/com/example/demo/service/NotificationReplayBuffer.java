@@ -0,0 +1,189 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.WebSocketNotificationMessage;
+import com.example.demo.model.NotificationType;
+import com.example.demo.service.relay.MessageRelay;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the most recent notification messages of every destination, numbered by sequence,
+ * so a client that reconnects can be sent just the messages it missed instead of reloading
+ * its notifications over REST. When the messages after its last sequence are no longer all
+ * here, the client has to resync.
+ *
+ * Unread count updates are not kept: each one replaces the last, and a reconnecting client
+ * reads the count anyway.
+ *
+ * A destination without messages for notifications.replay.idle-ms loses its buffer; a
+ * client that comes back to it with a sequence older than any dropped buffer resyncs.
+ *
+ * With the PostgreSQL relay, nodes number their messages when they flush them, so one with
+ * a lower sequence can arrive after a higher one has already been delivered here. A client
+ * whose last sequence falls between the two may not have had the late message, so it is
+ * asked to resync rather than replayed from after its last sequence.
+ */
+@Component
+public class NotificationReplayBuffer implements MessageRelay.Listener {
+
+    private static final String PREFIX = "/topic/notifications/";
+
+    private static final class Ring {
+        private final TreeMap<Long, Object> messages = new TreeMap<>();
+        private long evictedUpTo; // Highest sequence dropped to stay within capacity
+        // Sequence of a message that arrived late -> highest sequence buffered before it arrived
+        private final TreeMap<Long, Long> lateArrivals = new TreeMap<>();
+        private long lastAddedAt;
+        private boolean retired;
+
+        private long latest() {
+            return messages.isEmpty() ? evictedUpTo : Math.max(evictedUpTo, messages.lastKey());
+        }
+    }
+
+    private final MessageRelay messageRelay;
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+
+    @Value("${notifications.replay.capacity:100}")
+    private int capacity;
+
+    @Value("${notifications.replay.idle-ms:3600000}")
+    private long idleMs;
+
+    // Messages numbered below this may have been sent while this node was not receiving them
+    private volatile long floor;
+
+    // Highest sequence of any buffer dropped for being idle
+    private volatile long retiredUpTo;
+
+    public NotificationReplayBuffer(MessageRelay messageRelay) {
+        this.messageRelay = messageRelay;
+    }
+
+    @PostConstruct
+    public void init() {
+        floor = messageRelay.nextSequence();
+        messageRelay.addListener(this);
+    }
+
+    public boolean handles(String destination) {
+        return destination.startsWith(PREFIX);
+    }
+
+    /**
+     * Number a message that is about to be sent and keep it for replay.
+     */
+    public void record(String destination, WebSocketNotificationMessage message) {
+        if (message.getType() == NotificationType.UNREAD_COUNT || !handles(destination)) {
+            return;
+        }
+        long sequence = messageRelay.nextSequence();
+        message.setSequence(sequence);
+        add(destination, sequence, message);
+    }
+
+    /**
+     * Messages for a destination numbered above lastSequence, oldest first,
+     * or empty when some of them are no longer buffered.
+     */
+    public Optional<List<Object>> since(String destination, long lastSequence) {
+        Ring ring = rings.get(destination);
+        if (ring != null) {
+            synchronized (ring) {
+                if (!ring.retired) {
+                    if (lastSequence < Math.max(floor, ring.evictedUpTo) || missedLate(ring, lastSequence)) {
+                        return Optional.empty();
+                    }
+                    return Optional.of(new ArrayList<>(ring.messages.tailMap(lastSequence, false).values()));
+                }
+            }
+        }
+        return lastSequence < Math.max(floor, retiredUpTo) ? Optional.empty() : Optional.of(List.of());
+    }
+
+    // Sequence a client is up to date with once it has reloaded a destination over REST
+    public long latest(String destination) {
+        Ring ring = rings.get(destination);
+        if (ring != null) {
+            synchronized (ring) {
+                if (!ring.retired) {
+                    return Math.max(floor, ring.latest());
+                }
+            }
+        }
+        return Math.max(floor, retiredUpTo);
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.replay.idle-ms:3600000}", initialDelayString = "${notifications.replay.idle-ms:3600000}")
+    public void dropIdle() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Ring> entry : rings.entrySet()) {
+            Ring ring = entry.getValue();
+            synchronized (ring) {
+                if (now - ring.lastAddedAt >= idleMs) {
+                    retiredUpTo = Math.max(retiredUpTo, ring.latest());
+                    ring.retired = true;
+                    rings.remove(entry.getKey(), ring);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void relayed(String destination, JsonNode payload) {
+        if (!handles(destination)) {
+            return;
+        }
+        // Batches are relayed as one array of messages
+        for (JsonNode message : payload.isArray() ? payload : List.of(payload)) {
+            JsonNode sequence = message.get("sequence");
+            if (sequence != null && sequence.canConvertToLong()) {
+                add(destination, sequence.asLong(), message);
+            }
+        }
+    }
+
+    @Override
+    public void resumed(long sequence) {
+        floor = Math.max(floor, sequence);
+    }
+
+    private void add(String destination, long sequence, Object message) {
+        while (true) {
+            Ring ring = rings.computeIfAbsent(destination, d -> new Ring());
+            synchronized (ring) {
+                if (ring.retired) {
+                    continue; // Dropped for being idle just now, start a new one
+                }
+                // Messages from other nodes can arrive out of order, the map keeps them sorted
+                long latest = ring.latest();
+                if (sequence < latest) {
+                    ring.lateArrivals.merge(sequence, latest, Math::max);
+                }
+                ring.messages.put(sequence, message);
+                ring.lastAddedAt = System.currentTimeMillis();
+                while (ring.messages.size() > capacity) {
+                    ring.evictedUpTo = Math.max(ring.evictedUpTo, ring.messages.pollFirstEntry().getKey());
+                }
+                // A client behind evictedUpTo resyncs anyway
+                ring.lateArrivals.values().removeIf(upTo -> upTo <= ring.evictedUpTo);
+                return;
+            }
+        }
+    }
+
+    // A message numbered at or below lastSequence arrived after the client may already have had lastSequence
+    private static boolean missedLate(Ring ring, long lastSequence) {
+        return ring.lateArrivals.headMap(lastSequence, false).values().stream().anyMatch(upTo -> upTo >= lastSequence);
+    }
+}
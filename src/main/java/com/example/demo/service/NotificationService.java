@@ -1,33 +1,49 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.NotificationDTO;
+import com.example.demo.dto.NotificationPageResponse;
 import com.example.demo.dto.WebSocketNotificationMessage;
 import com.example.demo.model.Notification;
+import com.example.demo.model.NotificationReceipt;
 import com.example.demo.model.NotificationType;
 import com.example.demo.model.Role;
-import com.example.demo.model.User;
+import com.example.demo.repository.NotificationReceiptRepository;
 import com.example.demo.repository.NotificationRepository;
-import com.example.demo.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class NotificationService {
 
+    public static final String ADMIN_TOPIC = "/topic/notifications/admin";
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private NotificationRepository notificationRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private NotificationReceiptRepository notificationReceiptRepository;
+
+    @Autowired
+    private AdminIdCache adminIdCache;
+
+    @Autowired
+    private NotificationDelivery notificationDelivery;
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private UnreadCounterCache unreadCounters;
 
     /**
      * Create and send a notification to a specific user via WebSocket
@@ -55,21 +71,33 @@ public class NotificationService {
     }
 
     /**
-     * Send WebSocket notification to a specific user
+     * Send WebSocket notification to a specific user once the transaction commits
      */
     private void sendWebSocketNotification(Long recipientId, Notification notification) {
-        WebSocketNotificationMessage wsMessage = WebSocketNotificationMessage.builder()
+        WebSocketNotificationMessage wsMessage = toMessage(notification);
+
+        // The message is serialized after commit, so the new unread count can still be filled in
+        afterCommit(() -> unreadCounters.adjust(recipientId, 1, () -> countUnread(recipientId))
+                .ifPresent(wsMessage::setUnreadCount));
+
+        // Send to user-specific topic
+        notificationDelivery.send(userTopic(recipientId), wsMessage);
+    }
+
+    public static String userTopic(Long userId) {
+        return "/topic/notifications/user." + userId;
+    }
+
+    private WebSocketNotificationMessage toMessage(Notification notification) {
+        return WebSocketNotificationMessage.builder()
                 .notificationId(notification.getId())
                 .title(notification.getTitle())
                 .message(notification.getMessage())
                 .type(notification.getType())
                 .appointmentId(notification.getAppointmentId())
-                .recipientId(recipientId)
+                .recipientId(notification.getRecipientId())
                 .timestamp(notification.getCreatedAt())
                 .build();
-
-        // Send to user-specific topic
-        messagingTemplate.convertAndSend("/topic/notifications/user." + recipientId, wsMessage);
     }
 
     /**
@@ -91,59 +119,89 @@ public class NotificationService {
     }
 
     /**
-     * Notify all admins about appointment events
+     * Notify all admins about appointment events. The notification is stored once as an
+     * admin broadcast; each admin's read state is kept in notification_receipts.
      */
     @Transactional
     public void notifyAdmins(Long appointmentId, String title, String message,
                              NotificationType type) {
-        // Find all admin users
-        List<User> admins = userRepository.findByRole(Role.ADMIN);
-
-        for (User admin : admins) {
-            createAndSendNotification(admin.getId(), appointmentId, title, message, type);
-        }
-
-        // Also send to admin broadcast topic
-        WebSocketNotificationMessage wsMessage = WebSocketNotificationMessage.builder()
+        Notification notification = notificationRepository.save(Notification.builder()
+                .audience(Role.ADMIN)
+                .appointmentId(appointmentId)
                 .title(title)
                 .message(message)
                 .type(type)
-                .appointmentId(appointmentId)
-                .timestamp(LocalDateTime.now())
-                .build();
+                .isRead(false)
+                .build());
 
-        messagingTemplate.convertAndSend("/topic/notifications/admin", wsMessage);
+        // Every admin client subscribes to the admin broadcast topic. The message tells each of
+        // them that their unread count went up by one, so no per-admin count is pushed or queried.
+        WebSocketNotificationMessage wsMessage = toMessage(notification);
+        wsMessage.setUnreadDelta(1L);
+        notificationDelivery.send(ADMIN_TOPIC, wsMessage);
+
+        afterCommit(() -> unreadCounters.adjustLoaded(adminIdCache.getAdminIds(), 1));
     }
 
     /**
-     * Get all notifications for a user
+     * Get the newest notifications for a user, including broadcasts to the user's role.
+     * Older ones are reached through getNotificationPage.
      */
     public List<NotificationDTO> getNotificationsByUser(Long userId) {
-        List<Notification> notifications = notificationRepository
-                .findByRecipientIdOrderByCreatedAtDesc(userId);
-
-        return notifications.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return getNotificationPage(userId, null, MAX_PAGE_SIZE, null, false).getItems();
     }
 
     /**
-     * Get unread notifications for a user
+     * Get the newest unread notifications for a user, including broadcasts to the user's role
      */
     public List<NotificationDTO> getUnreadNotifications(Long userId) {
-        List<Notification> notifications = notificationRepository
-                .findByRecipientIdAndIsReadFalseOrderByCreatedAtDesc(userId);
+        return getNotificationPage(userId, null, MAX_PAGE_SIZE, null, true).getItems();
+    }
+
+    /**
+     * One page of a user's notifications, newest first. Personal rows and broadcasts to the
+     * user's role come from separate index-backed queries of at most one page each and are
+     * merged here, so a page costs the same however long the user's history is.
+     */
+    public NotificationPageResponse getNotificationPage(Long userId, Long before, Integer limit,
+                                                        NotificationType type, boolean unreadOnly) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // Fetch one extra row to know whether another page exists
+        Pageable page = PageRequest.of(0, pageSize + 1);
+        List<Notification> personal = unreadOnly
+                ? notificationRepository.findUnreadPage(userId, before, type, page)
+                : notificationRepository.findPage(userId, before, type, page);
+
+        List<NotificationDTO> rows = new ArrayList<>();
+        personal.forEach(notification -> rows.add(convertToDTO(notification)));
+
+        Role audience = audienceOf(userId);
+        if (audience != null) {
+            notificationRepository.findBroadcastPage(userId, audience, adminIdCache.adminSince(userId), unreadOnly, before, type, page)
+                    .forEach(row -> rows.add(convertToDTO((Notification) row[0], (NotificationReceipt) row[1])));
+            rows.sort(Comparator.comparing(NotificationDTO::getId).reversed());
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<NotificationDTO> items = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
 
-        return notifications.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return NotificationPageResponse.builder()
+                .items(items)
+                .nextCursor(hasMore ? items.get(items.size() - 1).getId() : null)
+                .hasMore(hasMore)
+                .build();
     }
 
     /**
      * Get unread notification count
      */
     public long getUnreadCount(Long userId) {
-        return notificationRepository.countByRecipientIdAndIsReadFalse(userId);
+        return unreadCounters.get(userId, () -> countUnread(userId));
+    }
+
+    private long countUnread(Long userId) {
+        return notificationRepository.countUnreadForUser(userId, audienceOf(userId), adminIdCache.adminSince(userId));
     }
 
     /**
@@ -154,31 +212,74 @@ public class NotificationService {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new IllegalArgumentException("Notification not found"));
 
-        // Verify the notification belongs to the user
-        if (!notification.getRecipientId().equals(userId)) {
+        // Verify the notification belongs to the user, or to the user's audience for a broadcast
+        Role audience = notification.getAudience();
+        if (audience != null ? audience != audienceOf(userId) : !notification.getRecipientId().equals(userId)) {
             throw new IllegalArgumentException("Unauthorized access to notification");
         }
 
-        notification.setIsRead(true);
-        notification.setReadAt(LocalDateTime.now());
-        notificationRepository.save(notification);
+        // Conditional update, so marking an already read notification changes nothing
+        List<Long> ids = List.of(notificationId);
+        LocalDateTime now = LocalDateTime.now();
+        int marked = audience != null
+                ? notificationReceiptRepository.markRead(userId, audience, adminIdCache.adminSince(userId), ids, now)
+                : notificationRepository.markRead(userId, ids, now);
+        if (marked > 0) {
+            updateUnreadCount(userId, -marked);
+        }
     }
 
     /**
-     * Mark all notifications as read for a user
+     * Mark the given notifications as read; IDs the user cannot see are ignored
      */
     @Transactional
-    public void markAllAsRead(Long userId) {
-        List<Notification> unreadNotifications = notificationRepository
-                .findByRecipientIdAndIsReadFalseOrderByCreatedAtDesc(userId);
+    public int markAsRead(List<Long> notificationIds, Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        int marked = notificationRepository.markRead(userId, notificationIds, now);
 
+        Role audience = audienceOf(userId);
+        if (audience != null) {
+            marked += notificationReceiptRepository.markRead(userId, audience, adminIdCache.adminSince(userId), notificationIds, now);
+        }
+        if (marked > 0) {
+            updateUnreadCount(userId, -marked);
+        }
+        return marked;
+    }
+
+    /**
+     * Mark everything up to and including a notification as read
+     */
+    @Transactional
+    public int markReadUpTo(Long notificationId, Long userId) {
         LocalDateTime now = LocalDateTime.now();
-        for (Notification notification : unreadNotifications) {
-            notification.setIsRead(true);
-            notification.setReadAt(now);
+        int marked = notificationRepository.markReadUpTo(userId, notificationId, now);
+
+        Role audience = audienceOf(userId);
+        if (audience != null) {
+            marked += notificationReceiptRepository.markReadUpTo(userId, audience, adminIdCache.adminSince(userId), notificationId, now);
         }
+        if (marked > 0) {
+            updateUnreadCount(userId, -marked);
+        }
+        return marked;
+    }
 
-        notificationRepository.saveAll(unreadNotifications);
+    /**
+     * Mark all notifications as read for a user
+     */
+    @Transactional
+    public void markAllAsRead(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        int marked = notificationRepository.markAllRead(userId, now);
+
+        Role audience = audienceOf(userId);
+        if (audience != null) {
+            marked += notificationReceiptRepository.markAllRead(userId, audience, adminIdCache.adminSince(userId), now);
+        }
+        if (marked > 0) {
+            updateUnreadCount(userId, -marked);
+        }
     }
 
     /**
@@ -189,12 +290,75 @@ public class NotificationService {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new IllegalArgumentException("Notification not found"));
 
-        // Verify the notification belongs to the user
-        if (!notification.getRecipientId().equals(userId)) {
+        // Verify the notification belongs to the user, or to the user's audience for a broadcast
+        Role audience = notification.getAudience();
+        if (audience != null ? audience != audienceOf(userId) : !notification.getRecipientId().equals(userId)) {
             throw new IllegalArgumentException("Unauthorized access to notification");
         }
 
-        notificationRepository.delete(notification);
+        delete(List.of(notificationId), userId, audience);
+    }
+
+    /**
+     * Delete the given notifications; IDs the user cannot see are ignored
+     */
+    @Transactional
+    public int deleteNotifications(List<Long> notificationIds, Long userId) {
+        return delete(notificationIds, userId, audienceOf(userId));
+    }
+
+    private int delete(List<Long> notificationIds, Long userId, Role audience) {
+        // Unread rows go separately so the unread count drops by exactly the right amount
+        int unread = notificationRepository.deleteByIds(userId, notificationIds, false);
+        int deleted = unread + notificationRepository.deleteByIds(userId, notificationIds, true);
+
+        // A broadcast is shared by its whole audience, so deleting only hides it for this user.
+        // Unread ones first: one read by a concurrent request in between is then hidden as read.
+        if (audience != null) {
+            int hiddenUnread = notificationReceiptRepository.hideUnread(userId, audience, adminIdCache.adminSince(userId), notificationIds, LocalDateTime.now());
+            unread += hiddenUnread;
+            deleted += hiddenUnread;
+            deleted += notificationReceiptRepository.hide(userId, notificationIds);
+        }
+
+        if (unread > 0) {
+            updateUnreadCount(userId, -unread);
+        }
+        return deleted;
+    }
+
+    // Broadcasts are visible to users of their audience from when their account was created;
+    // only admins receive them today
+    private Role audienceOf(Long userId) {
+        return adminIdCache.isAdmin(userId) ? Role.ADMIN : null;
+    }
+
+    /**
+     * Apply a change to the cached unread count once the transaction commits,
+     * and push the new count to the user's topic
+     */
+    private void updateUnreadCount(Long userId, long delta) {
+        afterCommit(() -> unreadCounters.adjust(userId, delta, () -> countUnread(userId)).ifPresent(count ->
+                notificationDelivery.send(userTopic(userId), WebSocketNotificationMessage.builder()
+                        .type(NotificationType.UNREAD_COUNT)
+                        .recipientId(userId)
+                        .unreadCount(count)
+                        .timestamp(LocalDateTime.now())
+                        .build())));
+    }
+
+    // Run an action once the current transaction commits, or right away without one
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     /**
@@ -207,11 +371,24 @@ public class NotificationService {
                 .message(notification.getMessage())
                 .type(notification.getType())
                 .recipientId(notification.getRecipientId())
+                .audience(notification.getAudience())
                 .appointmentId(notification.getAppointmentId())
                 .isRead(notification.getIsRead())
                 .createdAt(notification.getCreatedAt())
                 .readAt(notification.getReadAt())
                 .build();
     }
+
+    /**
+     * Convert a feed row; a broadcast takes its read state from the user's receipt
+     */
+    private NotificationDTO convertToDTO(Notification notification, NotificationReceipt receipt) {
+        NotificationDTO dto = convertToDTO(notification);
+        if (notification.getAudience() != null) {
+            dto.setIsRead(receipt != null);
+            dto.setReadAt(receipt != null ? receipt.getReadAt() : null);
+        }
+        return dto;
+    }
 }
 
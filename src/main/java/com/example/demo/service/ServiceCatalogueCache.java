@@ -0,0 +1,105 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ServiceResponse;
+import com.example.demo.model.AppointmentStatus;
+import com.example.demo.model.events.AppointmentEvent;
+import com.example.demo.model.events.AppointmentEventType;
+import com.example.demo.service.events.AppointmentEventConsumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of the service catalogue with today's booking counts.
+ *
+ * Concurrent misses share one reload. The cache is dropped when the TTL runs out, when
+ * the day changes, when an admin edits a service, and when the appointment event log
+ * shows a booking or cancellation (on every node, since all nodes read the same log).
+ * Callers get their own copies of the cached responses.
+ */
+@Component
+public class ServiceCatalogueCache implements AppointmentEventConsumer {
+
+    @Value("${services.catalogue.ttl-ms:30000}")
+    private long ttlMs;
+
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(List<ServiceResponse> services, LocalDate date, long loadedAt) {
+    }
+
+    public List<ServiceResponse> get(Supplier<List<ServiceResponse>> loader) {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            return copies(current.services());
+        }
+
+        synchronized (this) {
+            current = snapshot;
+            if (isFresh(current)) {
+                return copies(current.services());
+            }
+
+            LocalDate today = LocalDate.now();
+            List<ServiceResponse> loaded = List.copyOf(loader.get());
+            snapshot = new Snapshot(loaded, today, System.currentTimeMillis());
+            return copies(loaded);
+        }
+    }
+
+    // Waits for a reload in progress, so a reload that started before the change is not kept
+    public synchronized void invalidate() {
+        snapshot = null;
+    }
+
+    // For changes made in a transaction: dropping the cache before the commit would let a
+    // reload read the old rows and keep them for the whole TTL
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate();
+            }
+        });
+    }
+
+    private static List<ServiceResponse> copies(List<ServiceResponse> services) {
+        return services.stream().map(service -> service.toBuilder().build()).toList();
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return current != null
+                && current.date().equals(LocalDate.now())
+                && System.currentTimeMillis() - current.loadedAt() < ttlMs;
+    }
+
+    @Override
+    public String getName() {
+        return "service-catalogue-cache";
+    }
+
+    @Override
+    public boolean isDurable() {
+        return false;
+    }
+
+    @Override
+    public void consume(List<AppointmentEvent> events) {
+        boolean bookingsChanged = events.stream().anyMatch(event ->
+                event.getType() == AppointmentEventType.CREATED
+                        || event.getNewStatus() == AppointmentStatus.CANCELLED
+                        || event.getOldStatus() == AppointmentStatus.CANCELLED);
+        if (bookingsChanged) {
+            invalidate();
+        }
+    }
+}
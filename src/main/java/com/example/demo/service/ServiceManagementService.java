@@ -2,16 +2,20 @@ package com.example.demo.service;
 
 import com.example.demo.dto.ApiResponse;
 import com.example.demo.dto.ServiceRequest;
+import com.example.demo.dto.ServiceAvailabilityResponse;
 import com.example.demo.dto.ServiceResponse;
 import com.example.demo.exception.ResourceNotFoundException;
-import com.example.demo.repository.AppointmentRepository;
+import com.example.demo.model.ServiceCapacity;
+import com.example.demo.repository.ServiceCapacityRepository;
 import com.example.demo.repository.ServiceRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @org.springframework.stereotype.Service
@@ -19,7 +23,8 @@ import java.util.stream.Collectors;
 public class ServiceManagementService {
 
     private final ServiceRepository serviceRepository;
-    private final AppointmentRepository appointmentRepository;
+    private final ServiceCapacityRepository serviceCapacityRepository;
+    private final ServiceCatalogueCache catalogueCache;
 
     @Transactional
     public ApiResponse createService(ServiceRequest request) {
@@ -32,13 +37,13 @@ public class ServiceManagementService {
                 .requiredSkills(request.getRequiredSkills())
                 .priority(request.getPriority())
                 .maxDailySlots(request.getMaxDailySlots())
-                .availableSlots(request.getMaxDailySlots())
                 .serviceImage(request.getServiceImage())
                 .isActive(true)
                 .additionalNotes(request.getAdditionalNotes())
                 .build();
 
         serviceRepository.save(service);
+        catalogueCache.invalidateAfterCommit();
 
         return ApiResponse.builder()
                 .success(true)
@@ -46,11 +51,19 @@ public class ServiceManagementService {
                 .build();
     }
 
-    @Transactional(readOnly = true)
+    // Served from the catalogue cache; a refresh loads all services plus today's capacity rows
     public List<ServiceResponse> getAllServices() {
-        LocalDate today = LocalDate.now();
+        return catalogueCache.get(this::loadCatalogue);
+    }
+
+    private List<ServiceResponse> loadCatalogue() {
+        Map<Long, Integer> todayBookings = new HashMap<>();
+        for (ServiceCapacity capacity : serviceCapacityRepository.findByCapacityDate(LocalDate.now())) {
+            todayBookings.put(capacity.getServiceId(), capacity.getBooked());
+        }
+
         return serviceRepository.findAll().stream()
-                .map(service -> mapToResponse(service, today))
+                .map(service -> mapToResponse(service, todayBookings.getOrDefault(service.getId(), 0)))
                 .collect(Collectors.toList());
     }
 
@@ -58,7 +71,38 @@ public class ServiceManagementService {
     public ServiceResponse getServiceById(Long id) {
         com.example.demo.model.Service service = serviceRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Service not found"));
-        return mapToResponse(service, LocalDate.now());
+        int todayBookings = serviceCapacityRepository.findByServiceIdAndCapacityDate(id, LocalDate.now())
+                .map(ServiceCapacity::getBooked)
+                .orElse(0);
+        return mapToResponse(service, todayBookings);
+    }
+
+    // Booked and remaining slots of a service for each date in [from, from + days)
+    @Transactional(readOnly = true)
+    public List<ServiceAvailabilityResponse> getServiceAvailability(Long id, LocalDate from, int days) {
+        com.example.demo.model.Service service = serviceRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Service not found"));
+        LocalDate to = from.plusDays(days - 1L);
+
+        Map<LocalDate, ServiceCapacity> rows = new HashMap<>();
+        for (ServiceCapacity capacity : serviceCapacityRepository
+                .findByServiceIdAndCapacityDateBetweenOrderByCapacityDate(id, from, to)) {
+            rows.put(capacity.getCapacityDate(), capacity);
+        }
+
+        List<ServiceAvailabilityResponse> availability = new ArrayList<>(days);
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            ServiceCapacity capacity = rows.get(date);
+            int booked = capacity != null ? capacity.getBooked() : 0;
+            int maxSlots = capacity != null ? capacity.getMaxSlots() : service.getMaxDailySlots();
+            availability.add(ServiceAvailabilityResponse.builder()
+                    .date(date)
+                    .booked(booked)
+                    .maxSlots(maxSlots)
+                    .remainingSlots(Math.max(0, maxSlots - booked))
+                    .build());
+        }
+        return availability;
     }
 
     @Transactional
@@ -78,6 +122,8 @@ public class ServiceManagementService {
         service.setAdditionalNotes(request.getAdditionalNotes());
 
         serviceRepository.save(service);
+        serviceCapacityRepository.updateMaxSlotsFrom(id, LocalDate.now(), request.getMaxDailySlots());
+        catalogueCache.invalidateAfterCommit();
 
         return ApiResponse.builder()
                 .success(true)
@@ -91,8 +137,8 @@ public class ServiceManagementService {
                 .orElseThrow(() -> new ResourceNotFoundException("Service not found"));
 
         service.setIsActive(true);
-        service.setAvailableSlots(service.getMaxDailySlots());
         serviceRepository.save(service);
+        catalogueCache.invalidateAfterCommit();
 
         return ApiResponse.builder()
                 .success(true)
@@ -107,6 +153,7 @@ public class ServiceManagementService {
 
         service.setIsActive(false);
         serviceRepository.save(service);
+        catalogueCache.invalidateAfterCommit();
 
         return ApiResponse.builder()
                 .success(true)
@@ -120,6 +167,8 @@ public class ServiceManagementService {
             throw new ResourceNotFoundException("Service not found");
         }
         serviceRepository.deleteById(id);
+        serviceCapacityRepository.deleteByServiceId(id);
+        catalogueCache.invalidateAfterCommit();
 
         return ApiResponse.builder()
                 .success(true)
@@ -127,43 +176,8 @@ public class ServiceManagementService {
                 .build();
     }
 
-    // Reset available slots daily at midnight
-    @Scheduled(cron = "0 0 0 * * ?")
-    @Transactional
-    public void resetDailySlots() {
-        List<com.example.demo.model.Service> services = serviceRepository.findAll();
-        for (com.example.demo.model.Service service : services) {
-            service.setAvailableSlots(service.getMaxDailySlots());
-            // Auto-activate if was deactivated due to slots
-            if (!service.getIsActive() && service.getAvailableSlots() > 0) {
-                service.setIsActive(true);
-            }
-        }
-        serviceRepository.saveAll(services);
-    }
-
-    // Auto-deactivate when slots are full
-    @Transactional
-    public void checkAndDeactivateIfFull(Long serviceId) {
-        com.example.demo.model.Service service = serviceRepository.findById(serviceId)
-                .orElseThrow(() -> new ResourceNotFoundException("Service not found"));
-
-        if (service.getAvailableSlots() <= 0) {
-            service.setIsActive(false);
-            serviceRepository.save(service);
-        }
-    }
-
-    private ServiceResponse mapToResponse(com.example.demo.model.Service service) {
-        return mapToResponse(service, LocalDate.now());
-    }
-
-    private ServiceResponse mapToResponse(com.example.demo.model.Service service, LocalDate date) {
-        // Count today's bookings for this service (excluding cancelled/rejected)
-        Long todayBookingsCount = appointmentRepository.countAppointmentsByServiceAndDate(
-                service.getServiceName(), date);
-        
-        int todayBookings = todayBookingsCount != null ? todayBookingsCount.intValue() : 0;
+    // todayBookings: today's booked count from the capacity calendar
+    private ServiceResponse mapToResponse(com.example.demo.model.Service service, int todayBookings) {
         int remainingSlots = service.getMaxDailySlots() - todayBookings;
         boolean availableToday = service.getIsActive() && remainingSlots > 0;
         
@@ -177,7 +191,7 @@ public class ServiceManagementService {
                 .requiredSkills(service.getRequiredSkills())
                 .priority(service.getPriority())
                 .maxDailySlots(service.getMaxDailySlots())
-                .availableSlots(service.getAvailableSlots())
+                .availableSlots(Math.max(0, remainingSlots))
                 .serviceImage(service.getServiceImage())
                 .isActive(service.getIsActive())
                 .additionalNotes(service.getAdditionalNotes())
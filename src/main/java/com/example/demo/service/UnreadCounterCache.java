@@ -0,0 +1,105 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Unread notification count per user. A counter is loaded from the database the first
+ * time a user's count is asked for; NotificationService then applies every change committed
+ * on this node, so badge polls do not run a count query. Counters are reloaded once they
+ * are older than the TTL, and one that goes negative is dropped, so a missed change is
+ * corrected instead of kept.
+ *
+ * With websocket.relay=postgres other nodes change the same counts, so nothing is cached
+ * and every count is read from the database.
+ */
+@Component
+public class UnreadCounterCache {
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    @Value("${notifications.unread-counts.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${websocket.relay:local}")
+    private String relay;
+
+    public long get(Long userId, LongSupplier loader) {
+        if (!isEnabled()) {
+            return loader.getAsLong();
+        }
+        return counters.compute(userId, (id, current) ->
+                current != null && !current.isExpired(ttlMs) ? current : Counter.load(loader)).count.sum();
+    }
+
+    /**
+     * Apply a committed change to a loaded counter and return the new count. Users whose
+     * counter is not loaded are skipped; their count is read from the database when first
+     * needed. Without the cache the count is read right away, as the change is committed.
+     */
+    public OptionalLong adjust(Long userId, long delta, LongSupplier loader) {
+        if (!isEnabled()) {
+            return OptionalLong.of(loader.getAsLong());
+        }
+        return adjustIfLoaded(userId, delta);
+    }
+
+    /**
+     * Apply a committed change that reaches many users at once, such as an admin broadcast,
+     * to the counters that are loaded. Nothing is read from the database, and without the
+     * cache there is nothing to do.
+     */
+    public void adjustLoaded(Collection<Long> userIds, long delta) {
+        if (!isEnabled()) {
+            return;
+        }
+        userIds.forEach(userId -> adjustIfLoaded(userId, delta));
+    }
+
+    private OptionalLong adjustIfLoaded(Long userId, long delta) {
+        // computeIfPresent waits for a load in progress, whose query may predate this change
+        Counter counter = counters.computeIfPresent(userId, (id, current) -> {
+            current.count.add(delta);
+            return current;
+        });
+        if (counter == null) {
+            return OptionalLong.empty();
+        }
+        long count = counter.count.sum();
+        if (count < 0) {
+            // A change was applied twice or missed; the next read loads the real count
+            counters.remove(userId, counter);
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(count);
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.unread-counts.ttl-ms:60000}", initialDelayString = "${notifications.unread-counts.ttl-ms:60000}")
+    public void evictExpired() {
+        counters.values().removeIf(counter -> counter.isExpired(ttlMs));
+    }
+
+    private boolean isEnabled() {
+        return !"postgres".equals(relay);
+    }
+
+    private record Counter(LongAdder count, long loadedAt) {
+        static Counter load(LongSupplier loader) {
+            LongAdder count = new LongAdder();
+            count.add(loader.getAsLong());
+            return new Counter(count, System.currentTimeMillis());
+        }
+
+        boolean isExpired(long ttlMs) {
+            return System.currentTimeMillis() - loadedAt >= ttlMs;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.service.chatbot;
+
+import com.example.demo.dto.OpenRouterRequest;
+import com.example.demo.model.ChatMessage;
+import com.example.demo.model.User;
+import com.example.demo.repository.ChatMessageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the messages sent to the model: the system prompt, as many of the session's latest
+ * turns as fit in the token budget, and the new message. Only max-turns rows are read, newest
+ * first, so prompt size and query cost stay the same however long a session gets.
+ *
+ * Tokens are estimated at about four characters each, which is close enough for English text
+ * to keep the prompt within budget without a tokenizer.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChatContextBuilder {
+
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int TOKENS_PER_MESSAGE = 4; // Role and framing overhead
+
+    private final ChatMessageRepository chatMessageRepository;
+
+    @Value("${chatbot.context.max-turns:10}")
+    private int maxTurns;
+
+    @Value("${chatbot.context.token-budget:3000}")
+    private int tokenBudget;
+
+    public List<OpenRouterRequest.Message> build(User user, String sessionId, String systemPrompt, String message) {
+        List<ChatMessage> recent = maxTurns > 0
+                ? chatMessageRepository.findRecentTurns(user, sessionId, PageRequest.of(0, maxTurns))
+                : List.of();
+
+        // The system prompt and the new message always go in; history gets what is left
+        int remaining = tokenBudget - estimateTokens(systemPrompt) - estimateTokens(message);
+        List<ChatMessage> included = new ArrayList<>();
+        for (ChatMessage turn : recent) {
+            int cost = estimateTokens(turn.getMessage()) + estimateTokens(turn.getResponse());
+            if (cost > remaining) {
+                break;
+            }
+            remaining -= cost;
+            included.add(turn);
+        }
+
+        List<OpenRouterRequest.Message> messages = new ArrayList<>();
+        messages.add(message("system", systemPrompt));
+        // Oldest first, as the conversation happened
+        for (int i = included.size() - 1; i >= 0; i--) {
+            ChatMessage turn = included.get(i);
+            messages.add(message("user", turn.getMessage()));
+            messages.add(message("assistant", turn.getResponse()));
+        }
+        messages.add(message("user", message));
+        return messages;
+    }
+
+    public static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return TOKENS_PER_MESSAGE;
+        }
+        return TOKENS_PER_MESSAGE + (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private static OpenRouterRequest.Message message(String role, String content) {
+        return OpenRouterRequest.Message.builder()
+                .role(role)
+                .content(content)
+                .build();
+    }
+}
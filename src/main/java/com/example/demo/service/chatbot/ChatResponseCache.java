@@ -0,0 +1,123 @@
+package com.example.demo.service.chatbot;
+
+import com.example.demo.dto.ChatbotCacheStatsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Model replies to opening questions, so the usual ones (hours, pricing, booking steps,
+ * contact) are answered without a call to OpenRouter. Keys are the normalized question
+ * (see ChatText) plus the prompt version and model, so rewording the system prompt or
+ * switching models starts from an empty cache. Least recently used entries are dropped
+ * beyond max-entries, and entries expire after the TTL.
+ *
+ * Only questions asked without earlier turns in the context are cached; a follow-up's
+ * answer depends on the conversation before it.
+ */
+@Component
+public class ChatResponseCache {
+
+    public record Reply(String content, Integer tokensUsed) {
+    }
+
+    private record Entry(Reply reply, long storedAt) {
+    }
+
+    @Value("${chatbot.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chatbot.cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${chatbot.cache.ttl-ms:3600000}")
+    private long ttlMs;
+
+    // Access order, so the eldest entry is the least recently used
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxEntries) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder tokensSaved = new LongAdder();
+
+    public static String key(String promptVersion, String model, String message) {
+        return promptVersion + "|" + model + "|" + ChatText.normalize(message);
+    }
+
+    public Optional<Reply> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.storedAt() >= ttlMs) {
+                entries.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        if (entry.reply().tokensUsed() != null) {
+            tokensSaved.add(entry.reply().tokensUsed());
+        }
+        return Optional.of(entry.reply());
+    }
+
+    public void put(String key, Reply reply) {
+        // A question made only of greetings and filler says nothing the key could match on
+        if (!enabled || key.endsWith("|") || reply.content() == null || reply.content().isBlank()) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new Entry(reply, System.currentTimeMillis()));
+        }
+    }
+
+    public int purge() {
+        synchronized (entries) {
+            int size = entries.size();
+            entries.clear();
+            return size;
+        }
+    }
+
+    public ChatbotCacheStatsResponse getStats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return ChatbotCacheStatsResponse.builder()
+                .enabled(enabled)
+                .size(size)
+                .maxEntries(maxEntries)
+                .hits(hitCount)
+                .misses(misses.sum())
+                .hitRate(lookups == 0 ? 0 : (double) hitCount / lookups)
+                .evictions(evictions.sum())
+                .expirations(expirations.sum())
+                .tokensSaved(tokensSaved.sum())
+                .build();
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.demo.service.chatbot;
+
+import com.example.demo.dto.ChatResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Relays a streamed OpenRouter completion to the browser while it is generated. The upstream
+ * server-sent events are read line by line as the HTTP client receives them, and every
+ * content delta goes straight on as a "token" event, so no thread waits on either side.
+ *
+ * The stream ends with one "done" event holding the whole ChatResponse, or an "error" event
+ * with a message for the user. A reply with any text is handed to onComplete; it is marked
+ * incomplete when the upstream closed without [DONE] or stopped at the token limit. When the
+ * browser goes away the upstream request is cancelled, so no more tokens are paid for.
+ */
+@Slf4j
+public class ChatStreamRelay implements Flow.Subscriber<String> {
+
+    public static final String SESSION_EVENT = "session";
+    public static final String TOKEN_EVENT = "token";
+    public static final String DONE_EVENT = "done";
+    public static final String ERROR_EVENT = "error";
+
+    // What the user was shown; only a complete reply is fit to give to someone else
+    public record Reply(String content, Integer tokensUsed, boolean complete) {
+    }
+
+    private final SseEmitter emitter;
+    private final ObjectMapper objectMapper;
+    private final String sessionId;
+    private final Consumer<Reply> onComplete;
+
+    private final StringBuilder content = new StringBuilder();
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private volatile Flow.Subscription subscription;
+    private volatile Integer tokensUsed;
+    private volatile boolean doneReceived;
+    private volatile String finishReason;
+
+    public ChatStreamRelay(SseEmitter emitter, ObjectMapper objectMapper, String sessionId,
+                           Consumer<Reply> onComplete) {
+        this.emitter = emitter;
+        this.objectMapper = objectMapper;
+        this.sessionId = sessionId;
+        this.onComplete = onComplete;
+
+        emitter.onTimeout(this::abandon);
+        emitter.onError(e -> abandon());
+        emitter.onCompletion(this::abandon);
+        // The client learns its session before the first token
+        send(SseEmitter.event().name(SESSION_EVENT).data(sessionId));
+    }
+
+    /**
+     * Read a 200 response as a line stream; any other status becomes an error event.
+     */
+    public HttpResponse.BodyHandler<Void> bodyHandler() {
+        return info -> info.statusCode() == 200
+                ? HttpResponse.BodySubscribers.fromLineSubscriber(this)
+                : HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8), body -> {
+                    log.error("OpenRouter stream failed with status {}: {}", info.statusCode(), body);
+                    fail(errorMessage(info.statusCode()));
+                    return null;
+                });
+    }
+
+    /**
+     * Send a reply that is already complete, such as a mock response, as a single token.
+     */
+    public void complete(String reply, Integer tokens) {
+        content.append(reply);
+        tokensUsed = tokens;
+        doneReceived = true;
+        send(SseEmitter.event().name(TOKEN_EVENT).data(reply));
+        finish();
+    }
+
+    public void fail(String message) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        cancelUpstream();
+        send(SseEmitter.event().name(ERROR_EVENT).data(message));
+        emitter.complete();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        if (finished.get()) {
+            subscription.cancel();
+            return;
+        }
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(String line) {
+        // Other lines are blank separators or keep-alive comments such as ": OPENROUTER PROCESSING"
+        if (finished.get() || !line.startsWith("data:")) {
+            return;
+        }
+        String data = line.substring(5).trim();
+        if (data.equals("[DONE]")) {
+            doneReceived = true;
+            finish();
+            return;
+        }
+
+        JsonNode chunk;
+        try {
+            chunk = objectMapper.readTree(data);
+        } catch (IOException e) {
+            log.warn("Skipping unreadable OpenRouter chunk: {}", e.getMessage());
+            return;
+        }
+        if (chunk.hasNonNull("error")) {
+            log.error("OpenRouter stream error: {}", chunk.get("error"));
+            fail("Failed to get response from chatbot: " + chunk.get("error").path("message").asText("stream error"));
+            return;
+        }
+
+        JsonNode usage = chunk.path("usage").path("total_tokens");
+        if (usage.canConvertToInt()) {
+            tokensUsed = usage.asInt();
+        }
+        JsonNode reason = chunk.path("choices").path(0).path("finish_reason");
+        if (reason.isTextual()) {
+            finishReason = reason.asText();
+        }
+        JsonNode delta = chunk.path("choices").path(0).path("delta").path("content");
+        if (delta.isTextual() && !delta.asText().isEmpty()) {
+            content.append(delta.asText());
+            send(SseEmitter.event().name(TOKEN_EVENT).data(delta.asText()));
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        log.error("OpenRouter stream failed: {}", throwable.getMessage());
+        fail("Connection to AI service failed. Please try again.");
+    }
+
+    @Override
+    public void onComplete() {
+        // Upstream closed without [DONE]; the user keeps what they saw, marked incomplete
+        if (content.isEmpty()) {
+            fail("AI service returned an empty response. The model might be unavailable.");
+        } else {
+            finish();
+        }
+    }
+
+    private void finish() {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        String reply = content.toString();
+        send(SseEmitter.event().name(DONE_EVENT).data(ChatResponse.builder()
+                .response(reply)
+                .sessionId(sessionId)
+                .timestamp(LocalDateTime.now())
+                .tokensUsed(tokensUsed)
+                .build()));
+        emitter.complete();
+        onComplete.accept(new Reply(reply, tokensUsed, doneReceived && !"length".equals(finishReason)));
+    }
+
+    // The browser disconnected or the stream timed out
+    private void abandon() {
+        if (finished.compareAndSet(false, true)) {
+            cancelUpstream();
+        }
+    }
+
+    private void cancelUpstream() {
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    private void send(SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Chat stream closed by the client: {}", e.getMessage());
+            abandon();
+        }
+    }
+
+    private static String errorMessage(int status) {
+        return switch (status) {
+            case 401 -> "API authentication failed. Please check your OpenRouter API key.";
+            case 429 -> "API rate limit exceeded. Please try again later.";
+            default -> "Failed to get response from chatbot: HTTP " + status;
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.service.chatbot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Turns chat text into comparable terms: case-folded words without punctuation, with plural
+ * and verb endings stripped so "booking", "booked" and "books" all become "book". Deliberately
+ * light; it only has to make near-identical questions match.
+ *
+ * Search terms also leave out question words, modals and pronouns, which carry no topic. The
+ * normalized form used as a cache key keeps them, so "how do I cancel" and "when can I cancel"
+ * stay different questions; only greetings, politeness and articles are dropped there.
+ */
+public final class ChatText {
+
+    // Words that never change what a question asks
+    private static final Set<String> FILLER = Set.of(
+            "a", "an", "hello", "hey", "hi", "please", "thank", "thanks", "the");
+
+    private static final Set<String> STOP_WORDS = Stream.concat(FILLER.stream(), Stream.of(
+            "about", "and", "are", "as", "at", "be", "by", "can", "could", "do", "does", "for",
+            "from", "have", "how", "i", "in", "is", "it", "me", "my", "of", "on", "or", "so",
+            "tell", "that", "there", "this", "to", "us", "was", "we", "what", "when", "where",
+            "which", "who", "will", "with", "would", "you", "your")).collect(Collectors.toUnmodifiableSet());
+
+    private ChatText() {
+    }
+
+    // Topic terms for search
+    public static List<String> terms(String text) {
+        return words(text, STOP_WORDS);
+    }
+
+    // The question with only filler dropped, words joined by single spaces in their original order
+    public static String normalize(String text) {
+        return String.join(" ", words(text, FILLER));
+    }
+
+    private static List<String> words(String text, Set<String> skipped) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty() && !skipped.contains(word)) {
+                words.add(stem(word));
+            }
+        }
+        return words;
+    }
+
+    static String stem(String word) {
+        if (word.length() <= 3) {
+            return word;
+        }
+        if (word.endsWith("ies") && word.length() > 4) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.endsWith("ing") && word.length() > 5) {
+            return undouble(word.substring(0, word.length() - 3));
+        }
+        if (word.endsWith("ed") && word.length() > 4) {
+            return undouble(word.substring(0, word.length() - 2));
+        }
+        if (word.endsWith("es") && (word.endsWith("ches") || word.endsWith("shes") || word.endsWith("xes") || word.endsWith("sses"))) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us")) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    // "stopped" -> "stopp" -> "stop"
+    private static String undouble(String stem) {
+        int n = stem.length();
+        if (n > 2 && stem.charAt(n - 1) == stem.charAt(n - 2) && "lsz".indexOf(stem.charAt(n - 1)) < 0) {
+            return stem.substring(0, n - 1);
+        }
+        return stem;
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.demo.service.chatbot;
+
+import com.example.demo.model.CustomerQuestion;
+import com.example.demo.model.FAQ;
+import com.example.demo.repository.CustomerQuestionRepository;
+import com.example.demo.repository.FAQRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory BM25 index over active FAQs and published customer questions, so the chatbot can
+ * answer from curated text. Documents are the question and answer together, as ChatText
+ * terms, in an inverted index from term to the documents containing it; a search only
+ * touches the postings of the query's terms. A customer question is indexed only once an
+ * admin has answered and published it; until then its answer is the asker's alone.
+ *
+ * Besides the BM25 score, every hit carries a confidence: how much of the query and of the
+ * document's question they share, weighted by idf (1 when the question says the same thing).
+ * Only FAQ hits are meant to be given as answers verbatim (see Hit.isFaq).
+ *
+ * The postings, document lengths and totalLength always describe exactly the documents in
+ * the map, whether they got there by an edit on this node or by reconcile; both go through
+ * put and remove under the write lock. Edits on other nodes show up at the next reconcile.
+ * The version changes only when indexed text does, so it can be part of cache keys.
+ */
+@Component
+@Slf4j
+public class KnowledgeIndex {
+
+    // Standard BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final String FAQ_PREFIX = "faq:";
+    private static final String QUESTION_PREFIX = "question:";
+
+    public record Hit(String id, String question, String answer, double score, double confidence) {
+        public boolean isFaq() {
+            return id.startsWith(FAQ_PREFIX);
+        }
+    }
+
+    private record Document(String id, String question, String answer,
+                            Map<String, Integer> termFrequencies, int length, Set<String> questionTerms) {
+    }
+
+    private final FAQRepository faqRepository;
+    private final CustomerQuestionRepository customerQuestionRepository;
+
+    @Value("${chatbot.knowledge.enabled:true}")
+    private boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Document> documents = new HashMap<>();
+    // Term -> document id -> term frequency
+    private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+    private long totalLength;
+    private volatile long version;
+
+    public KnowledgeIndex(FAQRepository faqRepository, CustomerQuestionRepository customerQuestionRepository) {
+        this.faqRepository = faqRepository;
+        this.customerQuestionRepository = customerQuestionRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reconcile();
+    }
+
+    /**
+     * Bring the index in line with the database, touching only what changed
+     */
+    @Scheduled(fixedDelayString = "${chatbot.knowledge.reconcile-ms:300000}", initialDelayString = "${chatbot.knowledge.reconcile-ms:300000}")
+    public void reconcile() {
+        try {
+            Map<String, String[]> fresh = new LinkedHashMap<>();
+            for (FAQ faq : faqRepository.findByIsActiveTrueOrderByCreatedAtDesc()) {
+                fresh.put(faqId(faq.getId()), new String[]{faq.getQuestion(), faq.getAnswer()});
+            }
+            for (CustomerQuestion question : customerQuestionRepository.findByAnswerIsNotNullAndIsPublishedTrue()) {
+                if (!question.getAnswer().isBlank()) {
+                    fresh.put(questionId(question.getId()), new String[]{question.getQuestion(), question.getAnswer()});
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (String id : new ArrayList<>(documents.keySet())) {
+                    if (!fresh.containsKey(id)) {
+                        remove(id);
+                    }
+                }
+                fresh.forEach((id, text) -> put(id, text[0], text[1]));
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Chatbot knowledge index holds {} documents", fresh.size());
+        } catch (Exception e) {
+            log.error("Failed to load chatbot knowledge index: {}", e.getMessage(), e);
+        }
+    }
+
+    public void faqChanged(FAQ faq) {
+        String id = faqId(faq.getId());
+        if (Boolean.TRUE.equals(faq.getIsActive())) {
+            update(id, faq.getQuestion(), faq.getAnswer());
+        } else {
+            update(id, null, null);
+        }
+    }
+
+    public void faqDeleted(Long faqId) {
+        update(faqId(faqId), null, null);
+    }
+
+    public void questionChanged(CustomerQuestion question) {
+        String id = questionId(question.getId());
+        if (Boolean.TRUE.equals(question.getIsPublished()) && question.getAnswer() != null && !question.getAnswer().isBlank()) {
+            update(id, question.getQuestion(), question.getAnswer());
+        } else {
+            update(id, null, null);
+        }
+    }
+
+    public void questionDeleted(Long questionId) {
+        update(questionId(questionId), null, null);
+    }
+
+    /**
+     * The best matches for a query, highest score first
+     */
+    public List<Hit> search(String query, int limit) {
+        if (!enabled) {
+            return List.of();
+        }
+        Set<String> queryTerms = new HashSet<>(ChatText.terms(query));
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int n = documents.size();
+            if (n == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / n;
+
+            Map<String, Double> idfs = new HashMap<>();
+            double queryMass = 0;
+            for (String term : queryTerms) {
+                double idf = idf(term, n);
+                idfs.put(term, idf);
+                queryMass += idf;
+            }
+
+            Map<String, Double> scores = new HashMap<>();
+            for (String term : queryTerms) {
+                Map<String, Integer> docs = postings.get(term);
+                if (docs == null) {
+                    continue;
+                }
+                double idf = idfs.get(term);
+                docs.forEach((docId, tf) -> {
+                    int length = documents.get(docId).length();
+                    double weight = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+                    scores.merge(docId, weight, Double::sum);
+                });
+            }
+
+            double finalQueryMass = queryMass;
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                    .limit(limit)
+                    .map(entry -> {
+                        Document document = documents.get(entry.getKey());
+                        return new Hit(document.id(), document.question(), document.answer(), entry.getValue(),
+                                confidence(queryTerms, document.questionTerms(), idfs, finalQueryMass, n));
+                    })
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Idf-weighted overlap of query and question terms: 2 * shared / (query + question)
+    private double confidence(Set<String> queryTerms, Set<String> questionTerms,
+                              Map<String, Double> idfs, double queryMass, int n) {
+        double shared = 0;
+        double questionMass = 0;
+        for (String term : questionTerms) {
+            double idf = idfs.getOrDefault(term, idf(term, n));
+            questionMass += idf;
+            if (queryTerms.contains(term)) {
+                shared += idf;
+            }
+        }
+        double total = queryMass + questionMass;
+        return total == 0 ? 0 : 2 * shared / total;
+    }
+
+    private double idf(String term, int n) {
+        Map<String, Integer> docs = postings.get(term);
+        int df = docs == null ? 0 : docs.size();
+        return Math.log(1 + (n - df + 0.5) / (df + 0.5));
+    }
+
+    // Applied once the caller's transaction commits, so rolled back edits never show up
+    private void update(String id, String question, String answer) {
+        Runnable apply = () -> {
+            lock.writeLock().lock();
+            try {
+                if (question == null) {
+                    remove(id);
+                } else {
+                    put(id, question, answer);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+        });
+    }
+
+    // Callers hold the write lock
+    private void put(String id, String question, String answer) {
+        Document existing = documents.get(id);
+        if (existing != null && existing.question().equals(question) && existing.answer().equals(answer)) {
+            return;
+        }
+        remove(id);
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        List<String> terms = new ArrayList<>(ChatText.terms(question));
+        terms.addAll(ChatText.terms(answer));
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        Document document = new Document(id, question, answer, frequencies, terms.size(),
+                new HashSet<>(ChatText.terms(question)));
+
+        documents.put(id, document);
+        frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, tf));
+        totalLength += document.length();
+        version++;
+    }
+
+    // Callers hold the write lock
+    private void remove(String id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.termFrequencies().keySet()) {
+            Map<String, Integer> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(id);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= document.length();
+        version++;
+    }
+
+    private static String faqId(Long id) {
+        return FAQ_PREFIX + id;
+    }
+
+    private static String questionId(Long id) {
+        return QUESTION_PREFIX + id;
+    }
+}
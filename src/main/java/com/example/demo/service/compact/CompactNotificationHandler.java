@@ -0,0 +1,64 @@
+package com.example.demo.service.compact;
+
+import com.example.demo.service.AdminIdCache;
+import com.example.demo.service.NotificationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Native WebSocket endpoint for busy notification clients such as admin consoles. The
+ * client picks the encoding through the WebSocket subprotocol: notifications.cbor (the
+ * default, binary frames) or notifications.json (text frames). Every frame is an array of
+ * notification messages with the same fields as on the STOMP topics, except that CBOR
+ * leaves out null ones. The connection gets the user's own notifications, plus the admin
+ * broadcasts for admins.
+ *
+ * There is no SockJS fallback, so the server can negotiate permessage-deflate with the
+ * browser. Messages sent by the client are ignored.
+ */
+@Component
+@RequiredArgsConstructor
+public class CompactNotificationHandler extends AbstractWebSocketHandler implements SubProtocolCapable {
+
+    public static final String CBOR_PROTOCOL = "notifications.cbor";
+    public static final String JSON_PROTOCOL = "notifications.json";
+
+    private final CompactNotificationPublisher publisher;
+    private final AdminIdCache adminIdCache;
+
+    @Override
+    public List<String> getSubProtocols() {
+        return List.of(CBOR_PROTOCOL, JSON_PROTOCOL);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        // Set by the JWT handshake handler when the token is valid
+        if (!(session.getAttributes().get("userId") instanceof Long userId)) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Valid token required"));
+            return;
+        }
+
+        List<String> destinations = new ArrayList<>();
+        destinations.add(NotificationService.userTopic(userId));
+        if (adminIdCache.isAdmin(userId)) {
+            destinations.add(NotificationService.ADMIN_TOPIC);
+        }
+        CompactNotificationPublisher.Format format = JSON_PROTOCOL.equals(session.getAcceptedProtocol())
+                ? CompactNotificationPublisher.Format.JSON
+                : CompactNotificationPublisher.Format.CBOR;
+        publisher.register(session, format, destinations);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        publisher.unregister(session);
+    }
+}
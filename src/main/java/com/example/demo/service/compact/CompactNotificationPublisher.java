@@ -0,0 +1,222 @@
+package com.example.demo.service.compact;
+
+import com.example.demo.service.relay.MessageRelay;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes notifications to sessions on the compact endpoint (see CompactNotificationHandler).
+ * Messages for a destination that arrive within linger-ms of each other go out as one frame
+ * holding an array of messages. Each frame is encoded once per format and shared by every
+ * session on the destination, so a burst to the admin topic costs one encode, not one per
+ * admin and message.
+ */
+@Component
+@Slf4j
+public class CompactNotificationPublisher implements MessageRelay.Listener {
+
+    public enum Format { CBOR, JSON }
+
+    private record Subscriber(WebSocketSession session, Format format) {
+    }
+
+    private record Registration(Subscriber subscriber, List<String> destinations) {
+    }
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final MessageRelay messageRelay;
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    @Value("${notifications.compact.linger-ms:25}")
+    private long lingerMs;
+
+    @Value("${notifications.compact.pool-size:2}")
+    private int poolSize;
+
+    // A session that stays this far behind is closed; the client reconnects and catches up
+    @Value("${notifications.compact.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${notifications.compact.buffer-size-limit:524288}")
+    private int bufferSizeLimit;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, Registration> sessions = new ConcurrentHashMap<>();
+
+    // Messages waiting for their linger time; a destination is in the map only while a flush is scheduled
+    private final Map<String, List<Object>> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    public CompactNotificationPublisher(ObjectMapper objectMapper,
+                                       Jackson2ObjectMapperBuilder objectMapperBuilder,
+                                       MessageRelay messageRelay) {
+        this.jsonMapper = objectMapper;
+        // Same modules and date handling as the JSON mapper; null fields are simply left out
+        this.cborMapper = objectMapperBuilder.factory(new CBORFactory())
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+        this.messageRelay = messageRelay;
+    }
+
+    @PostConstruct
+    public void init() {
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("notification-compact-");
+        scheduler.initialize();
+        messageRelay.addListener(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    public void register(WebSocketSession session, Format format, List<String> destinations) {
+        Subscriber subscriber = new Subscriber(
+                new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, bufferSizeLimit), format);
+        sessions.put(session.getId(), new Registration(subscriber, destinations));
+        for (String destination : destinations) {
+            subscribers.compute(destination, (d, set) -> {
+                Set<Subscriber> result = set != null ? set : ConcurrentHashMap.newKeySet();
+                result.add(subscriber);
+                return result;
+            });
+        }
+    }
+
+    public void unregister(WebSocketSession session) {
+        Registration registration = sessions.remove(session.getId());
+        if (registration == null) {
+            return;
+        }
+        for (String destination : registration.destinations()) {
+            subscribers.computeIfPresent(destination, (d, set) -> {
+                set.remove(registration.subscriber());
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    /**
+     * Queue messages for the compact sessions on a destination. Free when nobody is connected there.
+     */
+    public void publish(String destination, Collection<?> messages) {
+        if (!subscribers.containsKey(destination)) {
+            return;
+        }
+        boolean[] created = new boolean[1];
+        pending.compute(destination, (d, batch) -> {
+            List<Object> result = batch;
+            if (result == null) {
+                result = new ArrayList<>();
+                created[0] = true;
+            }
+            result.addAll(messages);
+            return result;
+        });
+        // Only the first message schedules a flush; the rest of the burst rides along
+        if (created[0]) {
+            scheduler.schedule(() -> flush(destination), Instant.now().plusMillis(lingerMs));
+        }
+    }
+
+    @Override
+    public void relayed(String destination, JsonNode payload) {
+        List<JsonNode> messages = new ArrayList<>();
+        if (payload.isArray()) {
+            payload.forEach(messages::add);
+        } else {
+            messages.add(payload);
+        }
+        publish(destination, messages);
+    }
+
+    @Override
+    public void resumed(long sequence) {
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public long getFrames() {
+        return frames.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    WebSocketMessage<?> encode(Format format, List<?> batch) throws IOException {
+        return format == Format.CBOR
+                ? new BinaryMessage(cborMapper.writeValueAsBytes(batch))
+                : new TextMessage(jsonMapper.writeValueAsString(batch));
+    }
+
+    private void flush(String destination) {
+        List<Object> batch = pending.remove(destination);
+        Set<Subscriber> targets = subscribers.get(destination);
+        if (batch == null || targets == null) {
+            return;
+        }
+
+        Map<Format, WebSocketMessage<?>> encoded = new EnumMap<>(Format.class);
+        for (Subscriber subscriber : targets) {
+            try {
+                WebSocketMessage<?> frame = encoded.get(subscriber.format());
+                if (frame == null) {
+                    frame = encode(subscriber.format(), batch);
+                    encoded.put(subscriber.format(), frame);
+                }
+                subscriber.session().sendMessage(frame);
+                frames.increment();
+                bytes.add(frame.getPayloadLength());
+            } catch (SessionLimitExceededException e) {
+                log.warn("Closing compact session {}, it is too far behind: {}", subscriber.session().getId(), e.getMessage());
+                close(subscriber.session(), e.getStatus());
+            } catch (IOException e) {
+                log.warn("Could not push {} notification(s) to compact session {}: {}",
+                        batch.size(), subscriber.session().getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void close(WebSocketSession session, CloseStatus status) {
+        unregister(session);
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.debug("Could not close compact session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+}
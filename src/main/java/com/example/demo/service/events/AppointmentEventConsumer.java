@@ -0,0 +1,36 @@
+package com.example.demo.service.events;
+
+import com.example.demo.model.events.AppointmentEvent;
+
+import java.util.List;
+
+/**
+ * Reads the appointment event log in commit order. Implementations are picked up
+ * as Spring beans by AppointmentEventDispatcher.
+ */
+public interface AppointmentEventConsumer {
+
+    /**
+     * Stable name, used as the key of the stored offset
+     */
+    String getName();
+
+    /**
+     * Durable consumers resume from their stored offset and run once per event across
+     * all nodes. Non-durable consumers hold in-memory state and only see events written
+     * from node start on; the log is not kept long enough to rebuild state from.
+     */
+    boolean isDurable();
+
+    /**
+     * Called once when the node starts, after the start position is fixed and before the first
+     * batch. Non-durable consumers load their initial state here.
+     */
+    default void start() {
+    }
+
+    /**
+     * Handle the next batch of events, in commit order. Throwing makes the batch be delivered again.
+     */
+    void consume(List<AppointmentEvent> events);
+}
@@ -0,0 +1,221 @@
+package com.example.demo.service.events;
+
+import com.example.demo.model.events.AppointmentEvent;
+import com.example.demo.model.events.EventConsumerOffset;
+import com.example.demo.repository.events.AppointmentEventRepository;
+import com.example.demo.repository.events.EventConsumerOffsetRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Delivers the appointment event log to every AppointmentEventConsumer on a background thread.
+ *
+ * Events are read in commit order, by (writing transaction, event id), and only from
+ * transactions older than every transaction still running. An event id is taken at insert,
+ * so a later id can commit first; reading by id would step past the earlier one and never
+ * deliver it. A position in this order can never have events appear behind it.
+ *
+ * Durable consumers process each batch inside a transaction that holds a row lock on their
+ * offset, so a batch is handled by one node at a time and the offset only moves when the
+ * consumer's work commits (at-least-once). Non-durable consumers start on every node start
+ * at the first event not yet visible, after loading their state in start().
+ *
+ * Events are deleted once every durable consumer is past them and they are older than
+ * the retention period.
+ */
+@Component
+@Slf4j
+public class AppointmentEventDispatcher {
+
+    private final List<AppointmentEventConsumer> consumers;
+    private final AppointmentEventRepository eventRepository;
+    private final EventConsumerOffsetRepository offsetRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${appointment.events.poll-ms:250}")
+    private long pollMs;
+
+    @Value("${appointment.events.batch-size:200}")
+    private int batchSize;
+
+    @Value("${appointment.events.retention-days:30}")
+    private int retentionDays;
+
+    // Position each consumer has reached, as last seen by this node
+    private final Map<String, Position> positions = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public AppointmentEventDispatcher(List<AppointmentEventConsumer> consumers,
+                                      AppointmentEventRepository eventRepository,
+                                      EventConsumerOffsetRepository offsetRepository,
+                                      PlatformTransactionManager transactionManager) {
+        this.consumers = consumers;
+        this.eventRepository = eventRepository;
+        this.offsetRepository = offsetRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Everything written before the oldest running transaction is already visible
+        Position latest = new Position(eventRepository.findOldestRunningTransaction() - 1, Long.MAX_VALUE);
+        for (AppointmentEventConsumer consumer : consumers) {
+            if (!consumer.isDurable()) {
+                positions.put(consumer.getName(), latest);
+                consumer.start();
+            }
+        }
+
+        running = true;
+        worker = new Thread(this::run, "appointment-events");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Appointment event dispatcher started with consumers {}",
+                consumers.stream().map(AppointmentEventConsumer::getName).toList());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                dispatchAll();
+            } catch (Exception e) {
+                log.error("Appointment event dispatch failed: {}", e.getMessage(), e);
+            }
+            try {
+                Thread.sleep(pollMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deliver all visible events to every consumer
+     */
+    public void dispatchAll() {
+        for (AppointmentEventConsumer consumer : consumers) {
+            Position known = positions.get(consumer.getName());
+            if (known != null && nextBatch(known, 1).isEmpty()) {
+                continue;
+            }
+            try {
+                int delivered;
+                do {
+                    delivered = dispatchBatch(consumer);
+                } while (delivered == batchSize);
+            } catch (Exception e) {
+                log.error("Consumer '{}' failed at offset {}, batch will be retried: {}",
+                        consumer.getName(), positions.get(consumer.getName()), e.getMessage(), e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${appointment.events.purge-ms:3600000}", initialDelayString = "${appointment.events.purge-ms:3600000}")
+    public void purge() {
+        Position oldest = new Position(Long.MAX_VALUE, Long.MAX_VALUE);
+        for (AppointmentEventConsumer consumer : consumers) {
+            if (!consumer.isDurable()) {
+                continue;
+            }
+            EventConsumerOffset offset = offsetRepository.findById(consumer.getName()).orElse(null);
+            if (offset == null) {
+                return;  // Not started yet; it reads the log from the beginning
+            }
+            Position position = position(offset);
+            if (position.compareTo(oldest) < 0) {
+                oldest = position;
+            }
+        }
+
+        Position upTo = oldest;
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        Integer deleted = transactionTemplate.execute(status ->
+                eventRepository.deleteDeliveredBefore(cutoff, upTo.transactionId(), upTo.eventId()));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} appointment events older than {} days", deleted, retentionDays);
+        }
+    }
+
+    private int dispatchBatch(AppointmentEventConsumer consumer) {
+        String name = consumer.getName();
+
+        if (!consumer.isDurable()) {
+            List<AppointmentEvent> events = nextBatch(positions.getOrDefault(name, Position.START), batchSize);
+            if (!events.isEmpty()) {
+                consumer.consume(events);
+                positions.put(name, Position.of(events.get(events.size() - 1)));
+            }
+            return events.size();
+        }
+
+        Progress progress = transactionTemplate.execute(status -> {
+            EventConsumerOffset offset = offsetRepository.findForUpdate(name)
+                    .orElseGet(() -> offsetRepository.saveAndFlush(new EventConsumerOffset(name, 0L, 0L)));
+            List<AppointmentEvent> events = nextBatch(position(offset), batchSize);
+            if (!events.isEmpty()) {
+                consumer.consume(events);
+                AppointmentEvent last = events.get(events.size() - 1);
+                offset.setLastTransactionId(last.getTransactionId());
+                offset.setLastOffset(last.getId());
+            }
+            return new Progress(events.size(), position(offset));
+        });
+
+        // Only remembered once the offset has committed
+        positions.put(name, progress.position());
+        return progress.delivered();
+    }
+
+    private List<AppointmentEvent> nextBatch(Position after, int limit) {
+        return eventRepository.findNextBatch(after.transactionId(), after.eventId(), limit);
+    }
+
+    // Offsets stored before events carried their transaction only have the event id; every
+    // event written up to then shares the transaction that added the column.
+    private Position position(EventConsumerOffset offset) {
+        if (offset.getLastTransactionId() == null) {
+            offset.setLastTransactionId(eventRepository.findTransactionIdById(offset.getLastOffset()).orElse(0L));
+        }
+        return new Position(offset.getLastTransactionId(), offset.getLastOffset());
+    }
+
+    private record Position(long transactionId, long eventId) implements Comparable<Position> {
+        static final Position START = new Position(0, 0);
+
+        static Position of(AppointmentEvent event) {
+            return new Position(event.getTransactionId(), event.getId());
+        }
+
+        @Override
+        public int compareTo(Position other) {
+            int byTransaction = Long.compare(transactionId, other.transactionId);
+            return byTransaction != 0 ? byTransaction : Long.compare(eventId, other.eventId);
+        }
+    }
+
+    private record Progress(int delivered, Position position) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.service.events;
+
+import com.example.demo.model.Appointment;
+import com.example.demo.model.AppointmentStatus;
+import com.example.demo.model.Role;
+import com.example.demo.model.User;
+import com.example.demo.model.events.AppointmentEvent;
+import com.example.demo.model.events.AppointmentEventType;
+import com.example.demo.repository.events.AppointmentEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Appends appointment changes to the event log. Only the insert happens in the
+ * request thread; notifications and other fan-out are done by the consumers.
+ * When called inside a transaction the event commits together with the change.
+ */
+@Service
+@RequiredArgsConstructor
+public class AppointmentEventPublisher {
+
+    private final AppointmentEventRepository eventRepository;
+
+    public void publishCreated(Appointment appointment) {
+        publish(appointment, AppointmentEventType.CREATED, null, Role.CUSTOMER, null, null);
+    }
+
+    public void publishAssigned(Appointment appointment, AppointmentStatus oldStatus, User employee) {
+        publishAssigned(appointment, oldStatus, employee, null);
+    }
+
+    // correlationId ties together the events of one bulk operation (null for single changes)
+    public void publishAssigned(Appointment appointment, AppointmentStatus oldStatus, User employee,
+                                String correlationId) {
+        publish(appointment, AppointmentEventType.ASSIGNED, oldStatus, Role.ADMIN, employee, correlationId);
+    }
+
+    public void publishStatusChange(Appointment appointment, AppointmentStatus oldStatus, Role actor) {
+        publishStatusChange(appointment, oldStatus, actor, null);
+    }
+
+    // Record a status change; nothing is published when the status did not change
+    public void publishStatusChange(Appointment appointment, AppointmentStatus oldStatus, Role actor,
+                                    String correlationId) {
+        if (oldStatus == appointment.getStatus()) {
+            return;
+        }
+        publish(appointment, typeFor(appointment.getStatus()), oldStatus, actor, null, correlationId);
+    }
+
+    private void publish(Appointment appointment, AppointmentEventType type, AppointmentStatus oldStatus,
+                         Role actor, User employee, String correlationId) {
+        User customer = appointment.getUser();
+
+        eventRepository.save(AppointmentEvent.builder()
+                .appointmentId(appointment.getId())
+                .type(type)
+                .oldStatus(oldStatus)
+                .newStatus(appointment.getStatus())
+                .actor(actor)
+                .customerId(customer.getId())
+                .customerName(customer.getFirstName() + " " + customer.getLastName())
+                .employeeId(appointment.getAssignedEmployeeId())
+                .employeeName(employee != null ? employee.getFirstName() + " " + employee.getLastName() : null)
+                .vehicle(appointment.getVehicleBrand() + " " + appointment.getModel())
+                .registerNumber(appointment.getRegisterNumber())
+                .correlationId(correlationId)
+                .build());
+    }
+
+    private static AppointmentEventType typeFor(AppointmentStatus status) {
+        switch (status) {
+            case CONFIRMED:
+                return AppointmentEventType.CONFIRMED;
+            case IN_SERVICE:
+                return AppointmentEventType.IN_SERVICE;
+            case READY:
+                return AppointmentEventType.READY;
+            case COMPLETED:
+                return AppointmentEventType.COMPLETED;
+            case CANCELLED:
+                return AppointmentEventType.CANCELLED;
+            default:
+                return AppointmentEventType.STATUS_CHANGED;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.demo.service.events;
+
+import com.example.demo.dto.AppointmentStatisticsResponse;
+import com.example.demo.model.AppointmentStatus;
+import com.example.demo.model.events.AppointmentEvent;
+import com.example.demo.model.events.AppointmentEventType;
+import com.example.demo.repository.AppointmentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Running appointment counts, kept only in memory.
+ *
+ * Status counts are seeded from a COUNT(*) over appointments on node start and recounted
+ * periodically; events move them in between. The snapshot the count was taken in is kept,
+ * and events whose transaction that snapshot already saw are skipped, so no change is
+ * counted twice. Event type counts cover the events seen since node start.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AppointmentStatisticsConsumer implements AppointmentEventConsumer {
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final Map<AppointmentEventType, LongAdder> byEventType = new ConcurrentHashMap<>();
+    private volatile Map<AppointmentStatus, LongAdder> byStatus = new ConcurrentHashMap<>();
+    private volatile Snapshot counted = Snapshot.NONE;
+    private volatile long lastOffset;
+
+    @Override
+    public String getName() {
+        return "statistics";
+    }
+
+    @Override
+    public boolean isDurable() {
+        return false;
+    }
+
+    @Override
+    public void start() {
+        recount();
+    }
+
+    @Scheduled(fixedDelayString = "${appointment.statistics.reconcile-ms:600000}", initialDelayString = "${appointment.statistics.reconcile-ms:600000}")
+    public synchronized void recount() {
+        Map<AppointmentStatus, LongAdder> counts = new ConcurrentHashMap<>();
+        Snapshot snapshot = Snapshot.NONE;
+        for (Object[] row : appointmentRepository.countByStatusWithSnapshot()) {
+            snapshot = Snapshot.parse((String) row[0]);
+            if (row[1] != null) {
+                LongAdder count = new LongAdder();
+                count.add(((Number) row[2]).longValue());
+                counts.put(AppointmentStatus.valueOf((String) row[1]), count);
+            }
+        }
+        byStatus = counts;
+        counted = snapshot;
+        log.debug("Appointment statistics recounted at snapshot {}", snapshot);
+    }
+
+    @Override
+    public synchronized void consume(List<AppointmentEvent> events) {
+        for (AppointmentEvent event : events) {
+            byEventType.computeIfAbsent(event.getType(), t -> new LongAdder()).increment();
+            lastOffset = event.getId();
+            if (counted.sees(event.getTransactionId())) {
+                continue;
+            }
+            if (event.getOldStatus() != null) {
+                byStatus.computeIfAbsent(event.getOldStatus(), s -> new LongAdder()).decrement();
+            }
+            byStatus.computeIfAbsent(event.getNewStatus(), s -> new LongAdder()).increment();
+        }
+    }
+
+    public AppointmentStatisticsResponse getStatistics() {
+        Map<AppointmentStatus, Long> statusCounts = new EnumMap<>(AppointmentStatus.class);
+        byStatus.forEach((status, count) -> statusCounts.put(status, count.sum()));
+
+        Map<AppointmentEventType, Long> eventCounts = new EnumMap<>(AppointmentEventType.class);
+        byEventType.forEach((type, count) -> eventCounts.put(type, count.sum()));
+
+        return AppointmentStatisticsResponse.builder()
+                .statusCounts(statusCounts)
+                .eventCounts(eventCounts)
+                .lastOffset(lastOffset)
+                .build();
+    }
+
+    /**
+     * PostgreSQL snapshot as returned by pg_current_snapshot(): "xmin:xmax:xip,...".
+     * A transaction is visible to it when it finished before xmin, or before xmax and
+     * was not in progress when the snapshot was taken.
+     */
+    record Snapshot(long xmin, long xmax, Set<Long> inProgress) {
+        static final Snapshot NONE = new Snapshot(0, 0, Set.of());
+
+        static Snapshot parse(String text) {
+            String[] parts = text.split(":", -1);
+            Set<Long> inProgress = parts[2].isEmpty() ? Set.of()
+                    : Arrays.stream(parts[2].split(",")).map(Long::valueOf).collect(Collectors.toSet());
+            return new Snapshot(Long.parseLong(parts[0]), Long.parseLong(parts[1]), inProgress);
+        }
+
+        boolean sees(long transactionId) {
+            return transactionId < xmin || (transactionId < xmax && !inProgress.contains(transactionId));
+        }
+    }
+}
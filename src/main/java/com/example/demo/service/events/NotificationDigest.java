@@ -0,0 +1,55 @@
+package com.example.demo.service.events;
+
+import com.example.demo.model.NotificationType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Collects notifications per recipient for the events of one operation. A recipient with
+ * a single event gets the usual message; several events are folded into one summary.
+ */
+class NotificationDigest {
+
+    private static final int MAX_MESSAGE_LENGTH = 500;  // Notification.message column length
+
+    private record Entry(Long appointmentId, String title, String message, String summary, NotificationType type) {
+    }
+
+    private final Map<Long, List<Entry>> byRecipient = new LinkedHashMap<>();
+
+    void add(Long recipientId, Long appointmentId, String title, String message, String summary,
+             NotificationType type) {
+        byRecipient.computeIfAbsent(recipientId, id -> new ArrayList<>())
+                .add(new Entry(appointmentId, title, message, summary, type));
+    }
+
+    void send(Sender sender) {
+        byRecipient.forEach((recipientId, entries) -> {
+            Entry first = entries.get(0);
+            if (entries.size() == 1) {
+                sender.send(recipientId, first.appointmentId(), first.title(), first.message(), first.type());
+                return;
+            }
+
+            boolean sameType = entries.stream().allMatch(e -> e.type() == first.type());
+            String message = entries.size() + " appointments updated: " + entries.stream()
+                    .map(e -> e.title() + " - " + e.summary())
+                    .collect(Collectors.joining("; "));
+            if (message.length() > MAX_MESSAGE_LENGTH) {
+                message = message.substring(0, MAX_MESSAGE_LENGTH - 3) + "...";
+            }
+
+            sender.send(recipientId, first.appointmentId(), entries.size() + " Appointments Updated", message,
+                    sameType ? first.type() : NotificationType.GENERAL);
+        });
+    }
+
+    @FunctionalInterface
+    interface Sender {
+        void send(Long recipientId, Long appointmentId, String title, String message, NotificationType type);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demo.service.events;
+
+import com.example.demo.model.NotificationType;
+import com.example.demo.model.Role;
+import com.example.demo.model.events.AppointmentEvent;
+import com.example.demo.service.NotificationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns appointment events into customer, employee and admin notifications.
+ * Customer and employee notifications for events of one bulk operation (same
+ * correlation id) are coalesced per recipient, so a bulk update produces one
+ * notification per person. Unrelated changes are always notified on their own.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationEventConsumer implements AppointmentEventConsumer {
+
+    private final NotificationService notificationService;
+
+    @Override
+    public String getName() {
+        return "notifications";
+    }
+
+    @Override
+    public boolean isDurable() {
+        return true;
+    }
+
+    @Override
+    public void consume(List<AppointmentEvent> events) {
+        Map<String, List<AppointmentEvent>> operations = new LinkedHashMap<>();
+        for (AppointmentEvent event : events) {
+            String operation = event.getCorrelationId() != null ? event.getCorrelationId() : "event-" + event.getId();
+            operations.computeIfAbsent(operation, key -> new ArrayList<>()).add(event);
+        }
+        operations.values().forEach(this::notifyOperation);
+    }
+
+    private void notifyOperation(List<AppointmentEvent> events) {
+        NotificationDigest customerDigest = new NotificationDigest();
+        NotificationDigest employeeDigest = new NotificationDigest();
+
+        for (AppointmentEvent event : events) {
+            route(event, customerDigest, employeeDigest);
+        }
+
+        customerDigest.send(notificationService::notifyCustomer);
+        employeeDigest.send(notificationService::notifyEmployee);
+    }
+
+    private void route(AppointmentEvent event, NotificationDigest customers, NotificationDigest employees) {
+        Long customerId = event.getCustomerId();
+        Long appointmentId = event.getAppointmentId();
+        String vehicle = event.getVehicle();
+        boolean byEmployee = event.getActor() == Role.EMPLOYEE;
+
+        switch (event.getType()) {
+            case CREATED:
+                customers.add(customerId, appointmentId, "Appointment Created",
+                        "Your appointment for " + vehicle + " has been created successfully. Status: PENDING",
+                        vehicle, NotificationType.APPOINTMENT_CREATED);
+                notificationService.notifyAdmins(appointmentId, "New Appointment",
+                        "New appointment created by " + event.getCustomerName() + " for " + vehicle,
+                        NotificationType.APPOINTMENT_CREATED);
+                break;
+
+            case CONFIRMED:
+                if (byEmployee) {
+                    statusUpdated(event, customers);
+                    break;
+                }
+                customers.add(customerId, appointmentId, "Appointment Confirmed",
+                        "Your appointment for " + vehicle + " has been confirmed by admin.",
+                        vehicle, NotificationType.APPOINTMENT_CONFIRMED);
+                break;
+
+            case ASSIGNED:
+                String registered = vehicle + " (Reg: " + event.getRegisterNumber() + ")";
+                employees.add(event.getEmployeeId(), appointmentId, "New Appointment Assigned",
+                        "You have been assigned to service " + registered,
+                        registered, NotificationType.EMPLOYEE_ASSIGNED);
+                customers.add(customerId, appointmentId, "Employee Assigned",
+                        "Employee " + event.getEmployeeName() +
+                        " has been assigned to your appointment. Service is now in progress.",
+                        vehicle, NotificationType.STATUS_CHANGED_IN_SERVICE);
+                break;
+
+            case IN_SERVICE:
+                customers.add(customerId, appointmentId, "Service Started",
+                        "Your " + vehicle + " service has been started.",
+                        vehicle, NotificationType.STATUS_CHANGED_IN_SERVICE);
+                notificationService.notifyAdmins(appointmentId, "Service Started",
+                        "Service started for " + vehicle + " (Customer: " + event.getCustomerName() + ")",
+                        NotificationType.STATUS_CHANGED_IN_SERVICE);
+                break;
+
+            case READY:
+                customers.add(customerId, appointmentId, "Vehicle Ready for Pickup",
+                        "Good news! Your " + vehicle + " is ready for pickup.",
+                        vehicle, NotificationType.STATUS_CHANGED_READY);
+                notificationService.notifyAdmins(appointmentId, "Service Ready",
+                        vehicle + " is ready for pickup (Customer: " + event.getCustomerName() + ")",
+                        NotificationType.STATUS_CHANGED_READY);
+                break;
+
+            case COMPLETED:
+                customers.add(customerId, appointmentId, "Service Completed",
+                        "Your " + vehicle + " service has been completed successfully. Thank you for choosing us!",
+                        vehicle, NotificationType.STATUS_CHANGED_COMPLETED);
+                notificationService.notifyAdmins(appointmentId, "Service Completed",
+                        "Service completed for " + vehicle + " (Customer: " + event.getCustomerName() + ")",
+                        NotificationType.STATUS_CHANGED_COMPLETED);
+                break;
+
+            case CANCELLED:
+                cancelled(event, customers, employees);
+                break;
+
+            default:
+                statusUpdated(event, customers);
+                break;
+        }
+    }
+
+    private void cancelled(AppointmentEvent event, NotificationDigest customers, NotificationDigest employees) {
+        Long appointmentId = event.getAppointmentId();
+        String vehicle = event.getVehicle();
+
+        switch (event.getActor()) {
+            case CUSTOMER:
+                notificationService.notifyAdmins(appointmentId, "Appointment Cancelled by Customer",
+                        "Customer " + event.getCustomerName() + " cancelled appointment for " + vehicle,
+                        NotificationType.APPOINTMENT_CANCELLED);
+                if (event.getEmployeeId() != null) {
+                    employees.add(event.getEmployeeId(), appointmentId, "Appointment Cancelled",
+                            "The appointment for " + vehicle + " has been cancelled by the customer.",
+                            vehicle, NotificationType.APPOINTMENT_CANCELLED);
+                }
+                break;
+
+            case ADMIN:
+                customers.add(event.getCustomerId(), appointmentId, "Appointment Cancelled",
+                        "Your appointment for " + vehicle + " has been cancelled by admin.",
+                        vehicle, NotificationType.APPOINTMENT_CANCELLED);
+                break;
+
+            default:
+                customers.add(event.getCustomerId(), appointmentId, "Appointment Cancelled",
+                        "Your appointment for " + vehicle + " has been cancelled.",
+                        vehicle, NotificationType.APPOINTMENT_CANCELLED);
+                notificationService.notifyAdmins(appointmentId, "Appointment Cancelled",
+                        "Appointment cancelled for " + vehicle,
+                        NotificationType.APPOINTMENT_CANCELLED);
+                break;
+        }
+    }
+
+    // Status changes without a dedicated message (e.g. an employee moving an appointment back to PENDING)
+    private void statusUpdated(AppointmentEvent event, NotificationDigest customers) {
+        customers.add(event.getCustomerId(), event.getAppointmentId(), "Appointment Status Updated",
+                "Your appointment for " + event.getVehicle() + " status has been updated to " + event.getNewStatus(),
+                event.getVehicle(), NotificationType.GENERAL);
+    }
+}
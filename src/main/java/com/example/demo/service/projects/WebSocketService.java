@@ -1,18 +1,18 @@
 package com.example.demo.service.projects;
 
 import com.example.demo.dto.projects.ProjectResponse;
+import com.example.demo.service.relay.MessageRelay;
 import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
 public class WebSocketService {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageRelay messageRelay;
 
     public void sendProjectUpdate(Long customerId, ProjectResponse project) {
         String destination = "/topic/project-updates/" + customerId;
-        messagingTemplate.convertAndSend(destination, project);
+        messageRelay.send(destination, project);
     }
 }
\ No newline at end of file
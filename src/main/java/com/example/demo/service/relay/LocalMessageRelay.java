@@ -0,0 +1,32 @@
+package com.example.demo.service.relay;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-node relay: messages only reach clients connected to this node's simple broker.
+ */
+@Component
+@ConditionalOnProperty(name = "websocket.relay", havingValue = "local", matchIfMissing = true)
+@RequiredArgsConstructor
+public class LocalMessageRelay implements MessageRelay {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    // Seeded from the clock so numbers keep increasing across restarts
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    @Override
+    public void send(String destination, Object payload) {
+        messagingTemplate.convertAndSend(destination, payload);
+    }
+
+    @Override
+    public long nextSequence() {
+        return sequence.incrementAndGet();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.service.relay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * Sends messages to STOMP subscribers. The configured implementation decides whether
+ * subscribers connected to other nodes receive them too (websocket.relay).
+ */
+public interface MessageRelay {
+
+    // Opt-in destination next to a topic that gets its batches as one JSON array per frame
+    String BATCH_SUFFIX = "/batch";
+
+    void send(String destination, Object payload);
+
+    /**
+     * Send messages queued for one destination: each in its own frame on the destination,
+     * as send does, and all of them as one JSON array frame on destination + BATCH_SUFFIX.
+     */
+    default void sendBatch(String destination, List<?> messages) {
+        messages.forEach(message -> send(destination, message));
+        send(destination + BATCH_SUFFIX, messages);
+    }
+
+    // Next message sequence number, increasing across every node that shares this relay
+    long nextSequence();
+
+    // Receives what other nodes relay to this one; single-node relays never call it
+    default void addListener(Listener listener) {
+    }
+
+    interface Listener {
+
+        // A message, or a JSON array of a batch, from another node, already delivered to this node's subscribers
+        void relayed(String destination, JsonNode payload);
+
+        // Relaying (re)started; messages numbered below sequence may not have reached this node
+        void resumed(long sequence);
+    }
+}
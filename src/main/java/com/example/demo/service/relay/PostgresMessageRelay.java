@@ -0,0 +1,263 @@
+package com.example.demo.service.relay;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Relays STOMP messages between nodes through PostgreSQL LISTEN/NOTIFY, so a client gets
+ * its notifications whichever node it is connected to. A node delivers its own messages
+ * to its local broker right away and publishes them on the channel; every other node
+ * receives them on a dedicated listening connection and delivers them to its subscribers.
+ *
+ * A batch goes over the channel once; the receiving node splits it into one frame per
+ * message and adds the array frame for the batch destination, as the sender did locally.
+ *
+ * NOTIFY payloads must stay under 8000 bytes, so a larger message is stored in
+ * websocket_relay_payloads and only its id goes over the channel. Message sequence
+ * numbers come from a database sequence so they are comparable across nodes.
+ */
+@Component
+@ConditionalOnProperty(name = "websocket.relay", havingValue = "postgres")
+@Slf4j
+public class PostgresMessageRelay implements MessageRelay {
+
+    // n = sending node, d = destination, p = inline payload, r = id of an overflow row,
+    // b = the payload is an array of messages sent with sendBatch
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Envelope(String n, String d, JsonNode p, Long r, Boolean b) {
+    }
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${websocket.relay.channel:websocket_relay}")
+    private String channel;
+
+    @Value("${websocket.relay.prefixes:/topic/notifications/,/topic/project-updates/}")
+    private List<String> prefixes;
+
+    @Value("${websocket.relay.max-inline-bytes:7000}")
+    private int maxInlineBytes;
+
+    @Value("${websocket.relay.payload-retention-minutes:10}")
+    private int payloadRetentionMinutes;
+
+    // LISTEN needs a session-level connection; poolers in transaction mode (e.g. PgBouncer) drop it
+    @Value("${websocket.relay.listen-url:${spring.datasource.url}}")
+    private String listenUrl;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Value("${websocket.relay.poll-ms:500}")
+    private int pollMs;
+
+    private volatile boolean running;
+    private final List<Listener> relayListeners = new CopyOnWriteArrayList<>();
+    private Thread listener;
+
+    public PostgresMessageRelay(SimpMessagingTemplate messagingTemplate, JdbcTemplate jdbcTemplate,
+                                ObjectMapper objectMapper) {
+        this.messagingTemplate = messagingTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        // The channel name goes into a LISTEN statement, which cannot take a bind parameter
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalStateException("Invalid websocket.relay.channel: " + channel);
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS websocket_relay_payloads (" +
+                             "id BIGSERIAL PRIMARY KEY, payload TEXT NOT NULL, " +
+                             "created_at TIMESTAMP NOT NULL DEFAULT now())");
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS websocket_relay_sequence");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "websocket-relay");
+        listener.setDaemon(true);
+        listener.start();
+        log.info("WebSocket relay node {} listening on channel '{}'", nodeId, channel);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    @Override
+    public void send(String destination, Object payload) {
+        messagingTemplate.convertAndSend(destination, payload);
+        if (prefixes.stream().anyMatch(destination::startsWith)) {
+            publish(destination, payload, null);
+        }
+    }
+
+    @Override
+    public void sendBatch(String destination, List<?> messages) {
+        messages.forEach(message -> messagingTemplate.convertAndSend(destination, message));
+        messagingTemplate.convertAndSend(destination + BATCH_SUFFIX, messages);
+        if (prefixes.stream().anyMatch(destination::startsWith)) {
+            publish(destination, messages, true);
+        }
+    }
+
+    @Override
+    public long nextSequence() {
+        return jdbcTemplate.queryForObject("SELECT nextval('websocket_relay_sequence')", Long.class);
+    }
+
+    @Override
+    public void addListener(Listener listener) {
+        relayListeners.add(listener);
+    }
+
+    private void publish(String destination, Object payload, Boolean batch) {
+        try {
+            JsonNode body = objectMapper.valueToTree(payload);
+            String text = objectMapper.writeValueAsString(new Envelope(nodeId, destination, body, null, batch));
+            if (text.getBytes(StandardCharsets.UTF_8).length > maxInlineBytes) {
+                Long id = jdbcTemplate.queryForObject(
+                        "INSERT INTO websocket_relay_payloads (payload) VALUES (?) RETURNING id",
+                        Long.class, objectMapper.writeValueAsString(body));
+                text = objectMapper.writeValueAsString(new Envelope(nodeId, destination, null, id, batch));
+            }
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel, text);
+        } catch (Exception e) {
+            // Local subscribers already have the message; only other nodes miss it
+            log.warn("Could not relay message for {} to other nodes: {}", destination, e.getMessage());
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(listenUrl, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                // Anything notified while this connection was down is lost
+                if (!relayListeners.isEmpty()) {
+                    long sequence = nextSequence();
+                    relayListeners.forEach(l -> l.resumed(sequence));
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMs);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        receive(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | DataAccessException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("WebSocket relay connection lost, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(String text) {
+        try {
+            Envelope envelope = objectMapper.readValue(text, Envelope.class);
+            if (nodeId.equals(envelope.n())) {
+                return;
+            }
+
+            JsonNode payload;
+            if (envelope.p() != null) {
+                payload = envelope.p();
+            } else {
+                List<String> stored = jdbcTemplate.queryForList(
+                        "SELECT payload FROM websocket_relay_payloads WHERE id = ?", String.class, envelope.r());
+                if (stored.isEmpty()) {
+                    log.warn("Relayed payload {} for {} has expired", envelope.r(), envelope.d());
+                    return;
+                }
+                payload = objectMapper.readTree(stored.get(0));
+            }
+
+            if (Boolean.TRUE.equals(envelope.b()) && payload.isArray()) {
+                for (JsonNode message : payload) {
+                    deliver(envelope.d(), message);
+                }
+                deliver(envelope.d() + BATCH_SUFFIX, payload);
+            } else {
+                deliver(envelope.d(), payload);
+            }
+
+            for (Listener relayListener : relayListeners) {
+                relayListener.relayed(envelope.d(), payload);
+            }
+        } catch (Exception e) {
+            log.warn("Could not deliver relayed message: {}", e.getMessage());
+        }
+    }
+
+    // Already JSON, so hand the bytes to the broker without converting them again
+    private void deliver(String destination, JsonNode payload) throws Exception {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        byte[] body = objectMapper.writeValueAsBytes(payload);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(body, headers.getMessageHeaders()));
+    }
+
+    // Overflow rows are only read right after NOTIFY, so they can go after a few minutes
+    @Scheduled(fixedDelayString = "${websocket.relay.cleanup-ms:60000}")
+    public void deleteExpiredPayloads() {
+        if (!running) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM websocket_relay_payloads WHERE created_at < now() - make_interval(mins => ?)",
+                payloadRetentionMinutes);
+    }
+}
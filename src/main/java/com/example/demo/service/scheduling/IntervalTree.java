@@ -0,0 +1,190 @@
+package com.example.demo.service.scheduling;
+
+/**
+ * Augmented AVL tree of half-open intervals [start, end), each tagged with an id.
+ *
+ * Nodes are ordered by start (then end, then id) and store the largest end in their
+ * subtree, so insert, remove and "find any interval overlapping [s, e)" are all
+ * O(log n). Not thread-safe; callers synchronize.
+ */
+public class IntervalTree {
+
+    private static final class Node {
+        long start;
+        long end;
+        long id;
+        long maxEnd;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(long start, long end, long id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void insert(long start, long end, long id) {
+        root = insert(root, new Node(start, end, id));
+        size++;
+    }
+
+    public boolean remove(long start, long end, long id) {
+        int before = size;
+        root = remove(root, start, end, id);
+        return size < before;
+    }
+
+    public boolean overlaps(long start, long end) {
+        return findOverlap(start, end) != null;
+    }
+
+    /**
+     * Any stored interval overlapping [start, end), as {start, end, id}, or null
+     */
+    public long[] findOverlap(long start, long end) {
+        Node node = root;
+        while (node != null) {
+            if (node.start < end && start < node.end) {
+                return new long[]{node.start, node.end, node.id};
+            }
+            // If the left subtree reaches past start, an overlap (if any) is there:
+            // everything to the right starts even later than the left interval that was not hit
+            node = node.left != null && node.left.maxEnd > start ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Earliest t >= from such that [t, t + length) overlaps nothing and t + length <= limit, or -1
+     */
+    public long nextFree(long from, long length, long limit) {
+        long t = from;
+        while (t + length <= limit) {
+            long[] blocker = findOverlap(t, t + length);
+            if (blocker == null) {
+                return t;
+            }
+            t = blocker[1];
+        }
+        return -1;
+    }
+
+    private Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.end, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return balance(node);
+    }
+
+    private Node remove(Node node, long start, long end, long id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, end, id, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, start, end, id);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, start, end, id);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            // Take over the successor's interval and unlink the successor from the right subtree
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.start = successor.start;
+            node.end = successor.end;
+            node.id = successor.id;
+            node.right = removeMin(node.right);
+        }
+        return balance(node);
+    }
+
+    private Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
+    private static int compare(long start, long end, long id, Node node) {
+        if (start != node.start) {
+            return Long.compare(start, node.start);
+        }
+        if (end != node.end) {
+            return Long.compare(end, node.end);
+        }
+        return Long.compare(id, node.id);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = Math.max(node.end, Math.max(maxEnd(node.left), maxEnd(node.right)));
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static long maxEnd(Node node) {
+        return node == null ? Long.MIN_VALUE : node.maxEnd;
+    }
+}
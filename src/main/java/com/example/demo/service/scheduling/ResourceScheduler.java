@@ -0,0 +1,409 @@
+package com.example.demo.service.scheduling;
+
+import com.example.demo.dto.ScheduleWindowResponse;
+import com.example.demo.model.Appointment;
+import com.example.demo.model.AppointmentStatus;
+import com.example.demo.repository.AppointmentRepository;
+import com.example.demo.repository.ServiceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Duration-aware schedule of the workshop's service bays.
+ *
+ * Every booking becomes an interval from its time slot to time slot + the service's
+ * estimatedDuration, placed in the first bay that is free for the whole interval. Each
+ * bay of each day is an IntervalTree, so "is this bay free" and "next free window" are
+ * O(log n) per step.
+ *
+ * Only dates from today to cache-days ahead are kept; they are loaded at startup with one
+ * range query and each booking is in exactly one bay of its date. Bookings and status
+ * changes are applied after they commit, and every cached date is re-read from the database
+ * with one range query on each reconcile, which also picks up bookings made on other nodes
+ * and changed service durations. Dates outside the window are read from the database for
+ * each call and never cached, so searches far ahead do not grow the cache.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ResourceScheduler {
+
+    private static final List<DateTimeFormatter> SLOT_FORMATS = List.of(
+            new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern("h:mm[ ]a").toFormatter(Locale.ENGLISH),
+            new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern("H:mm").toFormatter(Locale.ENGLISH));
+
+    private static final DateTimeFormatter SLOT_LABEL = DateTimeFormatter.ofPattern("h:mm a", Locale.ENGLISH);
+
+    private final AppointmentRepository appointmentRepository;
+    private final ServiceRepository serviceRepository;
+
+    @Value("${scheduling.bays:1}")
+    private int bays = 1;
+
+    @Value("${scheduling.opening-hour:8}")
+    private int openingHour = 8;
+
+    @Value("${scheduling.closing-hour:18}")
+    private int closingHour = 18;
+
+    @Value("${scheduling.default-duration-minutes:60}")
+    private int defaultDurationMinutes = 60;
+
+    @Value("${scheduling.search-days:14}")
+    private int searchDays = 14;
+
+    @Value("${scheduling.slot-minutes:30}")
+    private int slotMinutes = 30;
+
+    @Value("${scheduling.cache-days:60}")
+    private int cacheDays = 60;
+
+    private final Map<LocalDate, DaySchedule> days = new ConcurrentHashMap<>();
+
+    // Service name -> estimated duration in hours, refreshed on each reconcile
+    private volatile Map<String, Double> durations;
+
+    /**
+     * Load the next cacheDays days of bookings with a single range query
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDate today = LocalDate.now();
+        try {
+            durations = loadDurations();
+            days.putAll(loadRange(today, today.plusDays(cacheDays)));
+            log.info("Resource schedule warmed for {} days", cacheDays);
+        } catch (Exception e) {
+            log.error("Failed to warm resource schedule: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Whether some bay is free for the appointment's whole duration
+     */
+    public boolean hasCapacity(Appointment appointment, Double durationHours) {
+        Interval interval = intervalOf(appointment, durationHours);
+        return schedule(interval.date()).freeBay(interval) >= 0;
+    }
+
+    /**
+     * Time slots of the date's active bookings, each once and as stored with the booking
+     */
+    public List<String> bookedSlots(LocalDate date) {
+        return schedule(date).timeSlots();
+    }
+
+    /**
+     * Start times on the slot grid (every slotMinutes within opening hours) at which no bay
+     * is free for the given duration, labelled like "9:00 AM"
+     */
+    public List<String> blockedSlots(LocalDate date, Double durationHours) {
+        long length = durationMinutes(durationHours);
+        DaySchedule schedule = schedule(date);
+        List<String> blocked = new ArrayList<>();
+        for (int minute = openingHour * 60; minute < closingHour * 60; minute += Math.max(1, slotMinutes)) {
+            LocalDateTime start = date.atStartOfDay().plusMinutes(minute);
+            Interval interval = new Interval(date, toMinute(start), toMinute(start) + length);
+            if (schedule.freeBay(interval) < 0) {
+                blocked.add(SLOT_LABEL.format(start));
+            }
+        }
+        return blocked;
+    }
+
+    /**
+     * Record a saved booking. A booking that no longer fits (e.g. a cancelled appointment
+     * being reopened) is still recorded, in the first bay, so capacity is not over-reported.
+     */
+    public void place(Appointment appointment, Double durationHours) {
+        Interval interval = intervalOf(appointment, durationHours);
+        DaySchedule schedule = days.get(interval.date());
+        // Dates not cached yet will be loaded from the database (already including this booking) on first read
+        if (schedule != null) {
+            schedule.place(appointment.getId(), appointment.getTimeSlot(), interval);
+        }
+    }
+
+    public void remove(Appointment appointment) {
+        if (appointment.getAppointmentDate() == null) {
+            return;
+        }
+        DaySchedule schedule = days.get(appointment.getAppointmentDate().toLocalDate());
+        if (schedule != null) {
+            schedule.remove(appointment.getId());
+        }
+    }
+
+    /**
+     * Keep the schedule in step with a cancellation or reopening
+     */
+    public void onStatusChange(Appointment appointment, AppointmentStatus oldStatus, Double durationHours) {
+        boolean wasBooked = oldStatus != AppointmentStatus.CANCELLED;
+        boolean isBooked = appointment.getStatus() != AppointmentStatus.CANCELLED;
+        if (wasBooked && !isBooked) {
+            remove(appointment);
+        } else if (!wasBooked && isBooked) {
+            place(appointment, durationHours);
+        }
+    }
+
+    /**
+     * Earliest window of the given duration, at or after from and within opening hours,
+     * in which a bay is free. Searches up to searchDays days ahead.
+     */
+    public Optional<ScheduleWindowResponse> nextFreeWindow(LocalDateTime from, Double durationHours) {
+        long length = durationMinutes(durationHours);
+        LocalDate today = LocalDate.now();
+        LocalDate last = from.toLocalDate().plusDays(searchDays - 1);
+        // Dates outside the cache window are read for this call only, with one query for the whole search
+        Map<LocalDate, DaySchedule> uncached = null;
+
+        for (int offset = 0; offset < searchDays; offset++) {
+            LocalDate date = from.toLocalDate().plusDays(offset);
+            long opening = toMinute(date.atTime(openingHour, 0));
+            long closing = toMinute(date.atTime(closingHour, 0));
+            long earliest = Math.max(opening, toMinute(from));
+
+            DaySchedule schedule;
+            if (inWindow(date, today)) {
+                schedule = schedule(date);
+            } else {
+                if (uncached == null) {
+                    uncached = loadRange(date, last);
+                }
+                schedule = uncached.getOrDefault(date, emptyDay());
+            }
+            long bestStart = -1;
+            int bestBay = -1;
+            synchronized (schedule) {
+                for (int bay = 0; bay < schedule.trees.length; bay++) {
+                    long start = schedule.trees[bay].nextFree(earliest, length, closing);
+                    if (start >= 0 && (bestStart < 0 || start < bestStart)) {
+                        bestStart = start;
+                        bestBay = bay;
+                    }
+                }
+            }
+            if (bestStart >= 0) {
+                return Optional.of(ScheduleWindowResponse.builder()
+                        .start(fromMinute(bestStart))
+                        .end(fromMinute(bestStart + length))
+                        .bay(bestBay + 1)
+                        .build());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Re-read every cached date from the database, and drop dates that have left the window
+     */
+    @Scheduled(fixedDelayString = "${scheduling.reconcile-ms:300000}", initialDelayString = "${scheduling.reconcile-ms:300000}")
+    public void reconcile() {
+        LocalDate today = LocalDate.now();
+        days.keySet().removeIf(date -> !inWindow(date, today));
+        try {
+            durations = loadDurations();
+            if (days.isEmpty()) {
+                return;
+            }
+            LocalDate last = days.keySet().stream().max(LocalDate::compareTo).orElse(today);
+            Map<LocalDate, DaySchedule> fresh = loadRange(today, last);
+            for (LocalDate date : new ArrayList<>(days.keySet())) {
+                days.put(date, fresh.getOrDefault(date, emptyDay()));
+            }
+        } catch (Exception e) {
+            log.error("Resource schedule reconciliation failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Dates outside the window are read from the database on every call
+    private DaySchedule schedule(LocalDate date) {
+        if (!inWindow(date, LocalDate.now())) {
+            return loadRange(date, date).getOrDefault(date, emptyDay());
+        }
+        DaySchedule schedule = days.get(date);
+        if (schedule == null) {
+            // Loaded outside the map so a slow query does not block other dates
+            DaySchedule loaded = loadRange(date, date).getOrDefault(date, emptyDay());
+            DaySchedule existing = days.putIfAbsent(date, loaded);
+            schedule = existing != null ? existing : loaded;
+        }
+        return schedule;
+    }
+
+    private boolean inWindow(LocalDate date, LocalDate today) {
+        return !date.isBefore(today) && !date.isAfter(today.plusDays(cacheDays));
+    }
+
+    private Map<String, Double> loadDurations() {
+        Map<String, Double> loaded = new HashMap<>();
+        for (com.example.demo.model.Service service : serviceRepository.findAll()) {
+            loaded.putIfAbsent(service.getServiceName(), service.getEstimatedDuration());
+        }
+        return loaded;
+    }
+
+    // Schedules for the dates in [from, to] that have bookings
+    private Map<LocalDate, DaySchedule> loadRange(LocalDate from, LocalDate to) {
+        Map<String, Double> known = durations;
+        if (known == null) {
+            known = loadDurations();
+            durations = known;
+        }
+
+        List<Object[]> rows = appointmentRepository.findScheduleRowsBetween(
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        Map<LocalDate, List<Booking>> bookings = new HashMap<>();
+        for (Object[] row : rows) {
+            Interval interval = intervalOf((LocalDateTime) row[1], (String) row[2], known.get((String) row[3]));
+            bookings.computeIfAbsent(interval.date(), d -> new ArrayList<>()).add(new Booking((Long) row[0], (String) row[2], interval));
+        }
+
+        Map<LocalDate, DaySchedule> result = new HashMap<>();
+        bookings.forEach((date, entries) -> {
+            // Place in start order so first-fit gives the same bays a live run would have
+            entries.sort(Comparator.comparingLong(booking -> booking.interval().start()));
+            DaySchedule schedule = emptyDay();
+            for (Booking booking : entries) {
+                schedule.place(booking.appointmentId(), booking.timeSlot(), booking.interval());
+            }
+            result.put(date, schedule);
+        });
+        return result;
+    }
+
+    private DaySchedule emptyDay() {
+        return new DaySchedule(Math.max(1, bays));
+    }
+
+    private Interval intervalOf(Appointment appointment, Double durationHours) {
+        return intervalOf(appointment.getAppointmentDate(), appointment.getTimeSlot(), durationHours);
+    }
+
+    // The time slot gives the start time; if it cannot be parsed, the time part of the date is used,
+    // and a bare date starts at opening time
+    private Interval intervalOf(LocalDateTime appointmentDate, String timeSlot, Double durationHours) {
+        LocalDate date = appointmentDate.toLocalDate();
+        LocalTime time = parseSlot(timeSlot);
+        if (time == null) {
+            time = appointmentDate.toLocalTime().equals(LocalTime.MIDNIGHT)
+                    ? LocalTime.of(openingHour, 0)
+                    : appointmentDate.toLocalTime();
+        }
+        long start = toMinute(date.atTime(time));
+        return new Interval(date, start, start + durationMinutes(durationHours));
+    }
+
+    // Accepts "9:00 AM", "09:00AM", "14:30", and ranges such as "9:00 AM - 10:00 AM" (start is used)
+    static LocalTime parseSlot(String timeSlot) {
+        if (timeSlot == null) {
+            return null;
+        }
+        String start = timeSlot.split("-")[0].trim();
+        for (DateTimeFormatter format : SLOT_FORMATS) {
+            try {
+                return LocalTime.parse(start, format);
+            } catch (DateTimeParseException e) {
+                // Try the next format
+            }
+        }
+        return null;
+    }
+
+    private long durationMinutes(Double durationHours) {
+        if (durationHours == null || durationHours <= 0) {
+            return defaultDurationMinutes;
+        }
+        return Math.max(1, Math.round(durationHours * 60));
+    }
+
+    private static long toMinute(LocalDateTime time) {
+        return time.toLocalDate().toEpochDay() * 24 * 60 + time.toLocalTime().toSecondOfDay() / 60;
+    }
+
+    private static LocalDateTime fromMinute(long minute) {
+        return LocalDate.ofEpochDay(Math.floorDiv(minute, 24 * 60))
+                .atStartOfDay()
+                .plusMinutes(Math.floorMod(minute, 24 * 60));
+    }
+
+    private record Interval(LocalDate date, long start, long end) {
+    }
+
+    private record Booking(Long appointmentId, String timeSlot, Interval interval) {
+    }
+
+    /**
+     * One interval tree per bay for a single date, plus where each appointment was placed
+     */
+    private static final class DaySchedule {
+        private final IntervalTree[] trees;
+        private final Map<Long, Placement> placements = new HashMap<>();
+
+        private record Placement(int bay, long start, long end, String timeSlot) {
+        }
+
+        DaySchedule(int bays) {
+            trees = new IntervalTree[bays];
+            for (int i = 0; i < bays; i++) {
+                trees[i] = new IntervalTree();
+            }
+        }
+
+        synchronized int freeBay(Interval interval) {
+            for (int bay = 0; bay < trees.length; bay++) {
+                if (!trees[bay].overlaps(interval.start(), interval.end())) {
+                    return bay;
+                }
+            }
+            return -1;
+        }
+
+        synchronized void place(Long appointmentId, String timeSlot, Interval interval) {
+            if (placements.containsKey(appointmentId)) {
+                return;
+            }
+            int bay = Math.max(0, freeBay(interval));
+            trees[bay].insert(interval.start(), interval.end(), appointmentId);
+            placements.put(appointmentId, new Placement(bay, interval.start(), interval.end(), timeSlot));
+        }
+
+        synchronized List<String> timeSlots() {
+            return placements.values().stream()
+                    .sorted(Comparator.comparingLong(Placement::start))
+                    .map(Placement::timeSlot)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .toList();
+        }
+
+        synchronized void remove(Long appointmentId) {
+            Placement placement = placements.remove(appointmentId);
+            if (placement != null) {
+                trees[placement.bay()].remove(placement.start(), placement.end(), appointmentId);
+            }
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.demo.service.stream;
+
+import com.example.demo.dto.WebSocketNotificationMessage;
+import com.example.demo.model.NotificationType;
+import com.example.demo.service.NotificationReplayBuffer;
+import com.example.demo.service.relay.MessageRelay;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes notifications to Server-Sent Events clients (GET /api/notifications/stream), for
+ * clients that only need a one-way feed and not the STOMP stack. A connection gets the same
+ * messages as the user's STOMP topic, plus the admin topic for admins, one event each. The
+ * event id is the message's replay sequence, so a reconnecting EventSource sends it back as
+ * Last-Event-ID and gets what it missed from the replay buffer, or RESYNC_REQUIRED.
+ *
+ * Connections are async requests, so no servlet thread is held while they are open. Sends
+ * and heartbeats run on a small scheduler of their own, never on the delivery executor.
+ * Each connection has an outbox that one thread at a time writes out; the others only add
+ * to it. A connection whose write has taken longer than send-time-limit-ms, or whose outbox
+ * holds more than buffer-limit events, is dropped, and the client reconnects and catches up
+ * through replay. The thread stuck writing to it completes the stream once the write returns.
+ */
+@Component
+@Slf4j
+public class NotificationStreamPublisher implements MessageRelay.Listener {
+
+    public static final String EVENT_NAME = "notification";
+
+    // Outbox entry for a heartbeat comment
+    private static final Object HEARTBEAT = new Object();
+
+    private static final class Connection {
+        private final SseEmitter emitter;
+        private final List<String> destinations;
+        // Sequences already sent as replay, skipped when they also arrive live
+        private final Set<Long> replayed = new HashSet<>();
+        private final Queue<Object> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        // Held by the thread writing to the emitter; everything else only queues
+        private final ReentrantLock sendLock = new ReentrantLock();
+        private volatile long sendStartedAt;
+
+        private Connection(SseEmitter emitter, List<String> destinations) {
+            this.emitter = emitter;
+            this.destinations = destinations;
+        }
+    }
+
+    private final NotificationReplayBuffer replayBuffer;
+    private final MessageRelay messageRelay;
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    @Value("${notifications.stream.pool-size:2}")
+    private int poolSize;
+
+    @Value("${notifications.stream.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    // EventSource reconnects by itself when the server ends the response
+    @Value("${notifications.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${notifications.stream.retry-ms:3000}")
+    private long retryMs;
+
+    @Value("${notifications.stream.send-time-limit-ms:10000}")
+    private long sendTimeLimitMs;
+
+    @Value("${notifications.stream.buffer-limit:100}")
+    private int bufferLimit;
+
+    private final Map<String, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final Set<Connection> open = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder events = new LongAdder();
+
+    public NotificationStreamPublisher(NotificationReplayBuffer replayBuffer, MessageRelay messageRelay) {
+        this.replayBuffer = replayBuffer;
+        this.messageRelay = messageRelay;
+    }
+
+    @PostConstruct
+    public void init() {
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("notification-stream-");
+        scheduler.initialize();
+        scheduler.scheduleAtFixedRate(this::heartbeat, Duration.ofMillis(heartbeatMs));
+        messageRelay.addListener(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        open.forEach(this::complete);
+    }
+
+    /**
+     * Open a stream over the given destinations. With lastEventId, the messages sent after it
+     * go out first.
+     */
+    public SseEmitter open(List<String> destinations, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Connection connection = new Connection(emitter, destinations);
+        emitter.onCompletion(() -> close(connection));
+        emitter.onTimeout(() -> close(connection));
+        emitter.onError(e -> close(connection));
+
+        // Registered and replayed under the send lock, so live messages queue up behind the replay
+        connection.sendLock.lock();
+        try {
+            connection.sendStartedAt = System.currentTimeMillis();
+            open.add(connection);
+            for (String destination : destinations) {
+                connections.computeIfAbsent(destination, d -> ConcurrentHashMap.newKeySet()).add(connection);
+            }
+            emitter.send(SseEmitter.event().reconnectTime(retryMs).comment("connected"));
+            if (lastEventId != null) {
+                replay(connection, lastEventId);
+            }
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        } finally {
+            connection.sendStartedAt = 0;
+            connection.sendLock.unlock();
+        }
+        flush(connection);
+        return emitter;
+    }
+
+    /**
+     * Queue messages for the stream connections on a destination. Free when nobody is connected there.
+     */
+    public void publish(String destination, Collection<?> messages) {
+        Set<Connection> targets = connections.get(destination);
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        List<Object> batch = new ArrayList<>(messages);
+        try {
+            scheduler.execute(() -> targets.forEach(connection -> send(connection, batch)));
+        } catch (RejectedExecutionException e) {
+            log.warn("Notification stream is shutting down, dropped {} message(s) for {}", batch.size(), destination);
+        }
+    }
+
+    @Override
+    public void relayed(String destination, JsonNode payload) {
+        List<JsonNode> messages = new ArrayList<>();
+        if (payload.isArray()) {
+            payload.forEach(messages::add);
+        } else {
+            messages.add(payload);
+        }
+        publish(destination, messages);
+    }
+
+    @Override
+    public void resumed(long sequence) {
+    }
+
+    public int getConnectionCount() {
+        return open.size();
+    }
+
+    public long getEvents() {
+        return events.sum();
+    }
+
+    private void replay(Connection connection, long lastEventId) throws IOException {
+        List<Object> missed = new ArrayList<>();
+        for (String destination : connection.destinations) {
+            Optional<List<Object>> since = replayBuffer.since(destination, lastEventId);
+            if (since.isEmpty()) {
+                sendEvent(connection, resyncRequired(connection.destinations));
+                return;
+            }
+            missed.addAll(since.get());
+        }
+        // Sequences are shared by all destinations, so one Last-Event-ID covers them all
+        missed.sort(Comparator.comparing(NotificationStreamPublisher::sequenceOf,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        for (Object message : missed) {
+            Long sequence = sequenceOf(message);
+            if (sequence != null) {
+                connection.replayed.add(sequence);
+            }
+            sendEvent(connection, message);
+        }
+    }
+
+    private void send(Connection connection, List<Object> batch) {
+        if (!open.contains(connection)) {
+            return;
+        }
+        connection.queued.addAndGet(batch.size());
+        connection.outbox.addAll(batch);
+        flush(connection);
+    }
+
+    // Write out the outbox, unless another thread is already doing so
+    private void flush(Connection connection) {
+        while (!connection.outbox.isEmpty()) {
+            if (!connection.sendLock.tryLock()) {
+                checkLimits(connection);
+                return;
+            }
+            try {
+                connection.sendStartedAt = System.currentTimeMillis();
+                Object message;
+                while (open.contains(connection) && (message = connection.outbox.poll()) != null) {
+                    connection.queued.decrementAndGet();
+                    write(connection, message);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Notification stream closed while sending: {}", e.getMessage());
+                close(connection);
+            } finally {
+                connection.sendStartedAt = 0;
+                connection.sendLock.unlock();
+            }
+            if (!open.contains(connection)) {
+                // Dropped while this thread was writing
+                connection.outbox.clear();
+                complete(connection);
+                return;
+            }
+        }
+    }
+
+    private void write(Connection connection, Object message) throws IOException {
+        if (message == HEARTBEAT) {
+            connection.emitter.send(SseEmitter.event().comment("heartbeat"));
+            return;
+        }
+        Long sequence = sequenceOf(message);
+        if (sequence != null && connection.replayed.remove(sequence)) {
+            return;
+        }
+        sendEvent(connection, message);
+    }
+
+    private void checkLimits(Connection connection) {
+        long startedAt = connection.sendStartedAt;
+        if (startedAt != 0 && System.currentTimeMillis() - startedAt > sendTimeLimitMs) {
+            log.warn("Dropping notification stream, a send has taken over {} ms", sendTimeLimitMs);
+            close(connection);
+        } else if (connection.queued.get() > bufferLimit) {
+            log.warn("Dropping notification stream, over {} events are waiting to be sent", bufferLimit);
+            close(connection);
+        }
+    }
+
+    private void sendEvent(Connection connection, Object message) throws IOException {
+        SseEmitter.SseEventBuilder event = SseEmitter.event().name(EVENT_NAME).data(message);
+        Long sequence = sequenceOf(message);
+        if (sequence != null) {
+            event.id(Long.toString(sequence));
+        }
+        connection.emitter.send(event);
+        events.increment();
+    }
+
+    // Keeps proxies from closing idle streams and finds clients that went away or fell behind
+    private void heartbeat() {
+        for (Connection connection : open) {
+            send(connection, List.of(HEARTBEAT));
+        }
+    }
+
+    private void close(Connection connection) {
+        if (!open.remove(connection)) {
+            return;
+        }
+        for (String destination : connection.destinations) {
+            connections.computeIfPresent(destination, (d, set) -> {
+                set.remove(connection);
+                return set.isEmpty() ? null : set;
+            });
+        }
+        complete(connection);
+    }
+
+    // Completing waits for a write in progress, so a thread that is not the writer leaves it to the writer
+    private void complete(Connection connection) {
+        if (connection.sendLock.tryLock()) {
+            try {
+                connection.emitter.complete();
+            } finally {
+                connection.sendLock.unlock();
+            }
+        }
+    }
+
+    private WebSocketNotificationMessage resyncRequired(List<String> destinations) {
+        long latest = destinations.stream().mapToLong(replayBuffer::latest).max().orElse(0);
+        return WebSocketNotificationMessage.builder()
+                .type(NotificationType.RESYNC_REQUIRED)
+                .sequence(latest)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    // Local messages are objects, messages relayed from other nodes are JSON trees
+    private static Long sequenceOf(Object message) {
+        if (message instanceof WebSocketNotificationMessage notification) {
+            return notification.getSequence();
+        }
+        if (message instanceof JsonNode node && node.path("sequence").canConvertToLong()) {
+            return node.get("sequence").asLong();
+        }
+        return null;
+    }
+}
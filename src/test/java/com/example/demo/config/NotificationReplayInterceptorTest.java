@@ -0,0 +1,130 @@
+package com.example.demo.config;
+
+import com.example.demo.dto.WebSocketNotificationMessage;
+import com.example.demo.model.NotificationType;
+import com.example.demo.model.Role;
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.AdminIdCache;
+import com.example.demo.service.NotificationReplayBuffer;
+import com.example.demo.service.NotificationService;
+import com.example.demo.service.relay.LocalMessageRelay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Which resubscribing sessions get missed notifications replayed: only the owner of a user
+ * topic, and only admins on the admin topic.
+ */
+class NotificationReplayInterceptorTest {
+
+    private static final long OWNER = 2L;
+    private static final long OTHER = 1L;
+    private static final long ADMIN = 9L;
+
+    private final List<Message<?>> replayed = new ArrayList<>();
+
+    private NotificationReplayBuffer replayBuffer;
+    private NotificationReplayInterceptor interceptor;
+    private SimpleBrokerMessageHandler broker;
+    private long lastSeen;
+
+    @BeforeEach
+    void setUp() {
+        SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate(mock(MessageChannel.class));
+        replayBuffer = new NotificationReplayBuffer(new LocalMessageRelay(messagingTemplate));
+        ReflectionTestUtils.setField(replayBuffer, "capacity", 100);
+        replayBuffer.init();
+
+        User admin = new User();
+        admin.setId(ADMIN);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByRole(Role.ADMIN)).thenReturn(List.of(admin));
+        AdminIdCache adminIdCache = new AdminIdCache(userRepository);
+        ReflectionTestUtils.setField(adminIdCache, "ttlMs", 60_000L);
+
+        MessageChannel clientOutboundChannel = (message, timeout) -> replayed.add(message);
+        interceptor = new NotificationReplayInterceptor(replayBuffer, messagingTemplate, clientOutboundChannel, adminIdCache);
+        broker = new SimpleBrokerMessageHandler(mock(SubscribableChannel.class), clientOutboundChannel,
+                mock(SubscribableChannel.class), List.of("/topic"));
+
+        lastSeen = replayBuffer.latest(NotificationService.userTopic(OWNER));
+        replayBuffer.record(NotificationService.userTopic(OWNER), notification("Your car is ready"));
+        replayBuffer.record(NotificationService.ADMIN_TOPIC, notification("New appointment request"));
+    }
+
+    @Test
+    void ownerGetsTheirMissedNotifications() {
+        subscribe(OWNER, NotificationService.userTopic(OWNER));
+
+        assertEquals(1, replayed.size());
+        assertEquals("Your car is ready", ((WebSocketNotificationMessage) replayed.get(0).getPayload()).getTitle());
+    }
+
+    @Test
+    void anotherUsersTopicIsNotReplayed() {
+        subscribe(OTHER, NotificationService.userTopic(OWNER));
+        subscribe(OTHER, NotificationService.userTopic(OWNER) + "/batch");
+
+        assertTrue(replayed.isEmpty());
+    }
+
+    @Test
+    void anonymousSessionsGetNoReplay() {
+        subscribe(null, NotificationService.userTopic(OWNER));
+        subscribe(null, NotificationService.ADMIN_TOPIC);
+
+        assertTrue(replayed.isEmpty());
+    }
+
+    @Test
+    void adminTopicIsReplayedToAdminsOnly() {
+        subscribe(OTHER, NotificationService.ADMIN_TOPIC);
+        assertTrue(replayed.isEmpty());
+
+        subscribe(ADMIN, NotificationService.ADMIN_TOPIC);
+        assertEquals(1, replayed.size());
+    }
+
+    private void subscribe(Long userId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId("session-" + userId);
+        accessor.setSubscriptionId("sub-1");
+        accessor.setDestination(destination);
+        accessor.setNativeHeader(NotificationReplayInterceptor.LAST_SEQUENCE_HEADER, String.valueOf(lastSeen));
+        Map<String, Object> attributes = new HashMap<>();
+        if (userId != null) {
+            attributes.put("userId", userId);
+        }
+        accessor.setSessionAttributes(attributes);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        interceptor.afterMessageHandled(message, mock(MessageChannel.class), broker, null);
+    }
+
+    private static WebSocketNotificationMessage notification(String title) {
+        return WebSocketNotificationMessage.builder()
+                .title(title)
+                .type(NotificationType.APPOINTMENT_CONFIRMED)
+                .build();
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.model.NotificationType;
+import com.example.demo.model.Role;
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.JwtTokenProvider;
+import com.example.demo.service.NotificationService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fan-out load harness for STOMP notifications. Starts the app on a random port against a
+ * local database, opens authenticated SockJS/STOMP sessions through the JWT handshake, each
+ * subscribed to its user's notification topic, and drives appointment notifications through
+ * NotificationService. For every session count it prints end-to-end latency percentiles (from
+ * the service call to the client's frame handler) and the deepest queues seen on the
+ * notification executor and the client outbound channel.
+ *
+ * Not part of the normal build. Run against a disposable database:
+ *   mvn test -Dtest=NotificationFanOutLoadTest -Dloadtest=true -Dloadtest.sessions=100,500,1000,2000
+ * Test users and their notifications are deleted afterwards.
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=${loadtest.datasource.url:jdbc:postgresql://localhost:5432/demo}",
+        "spring.datasource.username=${loadtest.datasource.username:postgres}",
+        "spring.datasource.password=${loadtest.datasource.password:postgres}",
+        "spring.jpa.show-sql=false",
+        "websocket.relay=local"
+})
+class NotificationFanOutLoadTest {
+
+    private static final String MARKER = "loadtest:";
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${loadtest.sessions:100,500,1000}")
+    private String sessionSteps;
+
+    // Notifications sent to every session at each step
+    @Value("${loadtest.messages-per-session:3}")
+    private int messagesPerSession;
+
+    @Value("${loadtest.connect-concurrency:50}")
+    private int connectConcurrency;
+
+    @Value("${loadtest.timeout-seconds:60}")
+    private int timeoutSeconds;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("notificationExecutor")
+    private ThreadPoolTaskExecutor notificationExecutor;
+
+    @Autowired
+    @Qualifier("clientOutboundChannelExecutor")
+    private ThreadPoolTaskExecutor clientOutboundExecutor;
+
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<StompSession> sessions = new ArrayList<>();
+
+    // Delivery latencies of the current step, in microseconds
+    private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger received = new AtomicInteger();
+
+    private WebSocketStompClient stompClient;
+
+    @AfterEach
+    void tearDown() {
+        sessions.forEach(session -> {
+            if (session.isConnected()) {
+                session.disconnect();
+            }
+        });
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+        if (!userIds.isEmpty()) {
+            Map<String, Object> params = Map.of("ids", userIds);
+            jdbcTemplate.update("DELETE FROM notifications WHERE recipient_id IN (:ids)", params);
+            jdbcTemplate.update("DELETE FROM users WHERE id IN (:ids)", params);
+        }
+    }
+
+    @Test
+    void reportsLatencyAndQueueDepthAsSessionsGrow() throws Exception {
+        StandardWebSocketClient webSocketClient = new StandardWebSocketClient();
+        stompClient = new WebSocketStompClient(new SockJsClient(List.of(new WebSocketTransport(webSocketClient))));
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper);
+        stompClient.setMessageConverter(converter);
+        ThreadPoolTaskScheduler heartbeats = new ThreadPoolTaskScheduler();
+        heartbeats.initialize();
+        stompClient.setTaskScheduler(heartbeats);
+
+        System.out.printf("%8s %9s %9s %9s %9s %9s %10s %12s%n",
+                "sessions", "delivered", "p50 ms", "p95 ms", "p99 ms", "max ms", "push queue", "outbound q");
+
+        List<Integer> steps = Arrays.stream(sessionSteps.split(",")).map(String::trim).map(Integer::parseInt).toList();
+        for (int target : steps) {
+            connectUpTo(target);
+            runStep();
+        }
+        heartbeats.shutdown();
+    }
+
+    private void connectUpTo(int target) throws Exception {
+        Semaphore inFlight = new Semaphore(connectConcurrency);
+        List<CompletableFuture<StompSession>> connecting = new ArrayList<>();
+        while (userIds.size() < target) {
+            User user = userRepository.save(User.builder()
+                    .username("loadtest-" + runId + "-" + userIds.size())
+                    .email("loadtest-" + runId + "-" + userIds.size() + "@loadtest.local")
+                    .password("{noop}unused")
+                    .role(Role.CUSTOMER)
+                    .build());
+            userIds.add(user.getId());
+
+            inFlight.acquire();
+            String url = "http://localhost:" + port + "/ws/notifications?token=" + tokenFor(user);
+            CompletableFuture<StompSession> future = stompClient.connectAsync(url, new StompSessionHandlerAdapter() {
+            });
+            connecting.add(future.thenApply(session -> {
+                session.subscribe(NotificationService.userTopic(user.getId()), new LatencyRecorder());
+                return session;
+            }).whenComplete((session, e) -> inFlight.release()));
+        }
+        for (CompletableFuture<StompSession> future : connecting) {
+            sessions.add(future.get(timeoutSeconds, TimeUnit.SECONDS));
+        }
+        // Let the broker register the last subscriptions before sending
+        Thread.sleep(500);
+    }
+
+    private void runStep() throws InterruptedException {
+        latencies.clear();
+        received.set(0);
+        int expected = userIds.size() * messagesPerSession;
+
+        LongAccumulator pushQueue = new LongAccumulator(Math::max, 0);
+        LongAccumulator outboundQueue = new LongAccumulator(Math::max, 0);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            pushQueue.accumulate(notificationExecutor.getThreadPoolExecutor().getQueue().size());
+            outboundQueue.accumulate(clientOutboundExecutor.getThreadPoolExecutor().getQueue().size());
+        }, 0, 5, TimeUnit.MILLISECONDS);
+
+        // Same call the appointment flow makes when an appointment is confirmed
+        for (int round = 0; round < messagesPerSession; round++) {
+            for (Long userId : userIds) {
+                notificationService.notifyCustomer(userId, null, "Appointment Confirmed",
+                        MARKER + System.nanoTime(), NotificationType.APPOINTMENT_CONFIRMED);
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (received.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        sampler.shutdownNow();
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("%8d %4d/%-4d %9.1f %9.1f %9.1f %9.1f %10d %12d%n",
+                userIds.size(), received.get(), expected,
+                percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99), percentile(sorted, 100),
+                pushQueue.get(), outboundQueue.get());
+        assertTrue(received.get() > 0, "No notification reached a client");
+    }
+
+    private String tokenFor(User user) {
+        UserDetails details = org.springframework.security.core.userdetails.User.withUsername(user.getUsername())
+                .password(user.getPassword())
+                .roles(user.getRole().name())
+                .build();
+        return jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities()), user.getId());
+    }
+
+    private static double percentile(long[] sortedMicros, int percentile) {
+        if (sortedMicros.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sortedMicros.length) - 1;
+        return sortedMicros[Math.max(0, index)] / 1_000.0;
+    }
+
+    // A frame on the user topic holds one message
+    private class LatencyRecorder implements StompFrameHandler {
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return JsonNode.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long now = System.nanoTime();
+            String text = ((JsonNode) payload).path("message").asText("");
+            if (text.startsWith(MARKER)) {
+                long sentAt = Long.parseLong(text.substring(MARKER.length()));
+                latencies.add((now - sentAt) / 1_000);
+                received.incrementAndGet();
+            }
+        }
+    }
+}
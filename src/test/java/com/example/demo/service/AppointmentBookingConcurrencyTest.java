@@ -0,0 +1,140 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.AppointmentDTO;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.model.Appointment;
+import com.example.demo.model.Role;
+import com.example.demo.model.User;
+import com.example.demo.repository.AppointmentRepository;
+import com.example.demo.repository.ServiceCapacityRepository;
+import com.example.demo.repository.ServiceRepository;
+import com.example.demo.repository.SlotCapacityRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.events.AppointmentEventPublisher;
+import com.example.demo.service.scheduling.ResourceScheduler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Hammers the booking path from many threads and checks that the booking locks and the
+ * in-memory schedule let only one booking take a slot. Repositories are mocks, so this runs
+ * without a database; the SQL guards are covered by AppointmentBookingPostgresTest.
+ */
+class AppointmentBookingConcurrencyTest {
+
+    private static final int THREADS = 32;
+
+    private final ConcurrentLinkedQueue<Appointment> saved = new ConcurrentLinkedQueue<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    private AppointmentRepository appointmentRepository;
+    private ServiceRepository serviceRepository;
+    private ServiceCapacityRepository serviceCapacityRepository;
+    private AppointmentService appointmentService;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        serviceRepository = mock(ServiceRepository.class);
+        serviceCapacityRepository = mock(ServiceCapacityRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+
+        User customer = User.builder().id(1L).username("customer").role(Role.CUSTOMER).build();
+        when(userRepository.findByUsername("customer")).thenReturn(Optional.of(customer));
+        when(appointmentRepository.findScheduleRowsBetween(any(), any())).thenReturn(Collections.emptyList());
+        when(appointmentRepository.saveAndFlush(any(Appointment.class))).thenAnswer(invocation -> {
+            Appointment appointment = invocation.getArgument(0);
+            appointment.setId(ids.incrementAndGet());
+            saved.add(appointment);
+            return appointment;
+        });
+        when(serviceRepository.findFirstByServiceName(anyString())).thenReturn(Optional.empty());
+        // The bay counters live in SQL; here the in-process locks and schedule must hold on their own
+        SlotCapacityRepository slotCapacityRepository = mock(SlotCapacityRepository.class);
+        when(slotCapacityRepository.reserve(any(), anyString(), anyInt())).thenReturn(1);
+
+        appointmentService = new AppointmentService();
+        ReflectionTestUtils.setField(appointmentService, "appointmentRepository", appointmentRepository);
+        ReflectionTestUtils.setField(appointmentService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(appointmentService, "serviceRepository", serviceRepository);
+        ReflectionTestUtils.setField(appointmentService, "serviceCapacityRepository", serviceCapacityRepository);
+        ReflectionTestUtils.setField(appointmentService, "slotCapacityRepository", slotCapacityRepository);
+        ReflectionTestUtils.setField(appointmentService, "eventPublisher", mock(AppointmentEventPublisher.class));
+        ReflectionTestUtils.setField(appointmentService, "bookingLocks", new BookingLocks());
+        ReflectionTestUtils.setField(appointmentService, "resourceScheduler", new ResourceScheduler(appointmentRepository, serviceRepository));
+        ReflectionTestUtils.setField(appointmentService, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    @Test
+    void onlyOneBookingWinsTheSameSlot() throws Exception {
+        LocalDateTime when = LocalDate.now().plusDays(3).atTime(10, 0);
+
+        int succeeded = hammer(i -> booking(when, "10:00 AM", "Oil Change"));
+
+        assertEquals(1, succeeded);
+        assertEquals(1, saved.size());
+    }
+
+    private int hammer(IntFunction<AppointmentDTO> requests) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        for (int i = 0; i < THREADS; i++) {
+            AppointmentDTO dto = requests.apply(i);
+            pool.submit(() -> {
+                start.await();
+                try {
+                    appointmentService.createAppointment(dto, "customer");
+                    succeeded.incrementAndGet();
+                } catch (BadRequestException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(THREADS, succeeded.get() + rejected.get());
+        return succeeded.get();
+    }
+
+    private static AppointmentDTO booking(LocalDateTime when, String timeSlot, String serviceType) {
+        return AppointmentDTO.builder()
+                .vehicleType("Car")
+                .vehicleBrand("Toyota")
+                .model("Corolla")
+                .registerNumber("CAB-1234")
+                .serviceType(serviceType)
+                .appointmentDate(when)
+                .timeSlot(timeSlot)
+                .build();
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.AppointmentDTO;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.model.Appointment;
+import com.example.demo.model.AppointmentStatus;
+import com.example.demo.model.Role;
+import com.example.demo.model.User;
+import com.example.demo.repository.AppointmentRepository;
+import com.example.demo.repository.ServiceRepository;
+import com.example.demo.repository.SlotCapacityRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Booking guards that live in SQL: the conditional upserts on service_capacity and
+ * slot_capacity and the partial unique index on date + time slot. Runs against a throwaway PostgreSQL and is
+ * skipped where Docker is not available.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class AppointmentBookingPostgresTest {
+
+    private static final int THREADS = 32;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private SlotCapacityRepository slotCapacityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User customer;
+
+    @BeforeEach
+    void setUp() {
+        String name = "customer-" + UUID.randomUUID().toString().substring(0, 8);
+        customer = userRepository.save(User.builder()
+                .username(name)
+                .email(name + "@example.com")
+                .password("{noop}unused")
+                .role(Role.CUSTOMER)
+                .build());
+    }
+
+    @Test
+    void serviceDailyCapacityIsNeverExceeded() throws Exception {
+        com.example.demo.model.Service service = service("Engine Repair " + customer.getUsername(), 3);
+        LocalDateTime when = LocalDate.now().plusDays(3).atTime(8, 0);
+
+        // Every thread asks for a different 15-minute slot, so only the service capacity limits them
+        int succeeded = hammer(i -> booking(when, when.plusMinutes(15L * i).toLocalTime().toString(), service.getServiceName()));
+
+        assertEquals(3, succeeded);
+        assertEquals(3, booked(service, when.toLocalDate()));
+        assertEquals(3, appointmentRepository.findByUser(Optional.of(customer)).size());
+    }
+
+    @Test
+    void slotTakenOnAnotherNodeKeepsNoCapacity() {
+        com.example.demo.model.Service service = service("Brake Check " + customer.getUsername(), 5);
+        LocalDateTime when = LocalDate.now().plusDays(4).atTime(9, 0);
+
+        // The first booking loads the day into this node's in-memory schedule
+        appointmentService.createAppointment(booking(when, "9:00 AM", service.getServiceName()), customer.getUsername());
+
+        // Another node books 11:00 AM; this node's schedule does not know about it
+        appointmentRepository.saveAndFlush(Appointment.builder()
+                .vehicleType("Car")
+                .vehicleBrand("Honda")
+                .registerNumber("CAA-0001")
+                .serviceType("Other")
+                .appointmentDate(when)
+                .timeSlot("11:00 AM")
+                .status(AppointmentStatus.PENDING)
+                .user(customer)
+                .build());
+
+        // The unique index rejects the insert, and the capacity slot taken in the same transaction is given back
+        assertThrows(BadRequestException.class, () -> appointmentService.createAppointment(
+                booking(when, "11:00 AM", service.getServiceName()), customer.getUsername()));
+        assertEquals(1, booked(service, when.toLocalDate()));
+    }
+
+    @Test
+    void noMoreBookingsStartInASlotThanThereAreBays() {
+        LocalDate date = LocalDate.now().plusDays(5);
+        String timeSlot = "2:00 PM " + customer.getUsername();
+
+        assertEquals(1, slotCapacityRepository.reserve(date, timeSlot, 2));
+        assertEquals(1, slotCapacityRepository.reserve(date, timeSlot, 2));
+        assertEquals(0, slotCapacityRepository.reserve(date, timeSlot, 2));
+
+        // A cancellation frees a bay for the next booking
+        assertEquals(1, slotCapacityRepository.release(date, timeSlot));
+        assertEquals(1, slotCapacityRepository.reserve(date, timeSlot, 2));
+    }
+
+    private com.example.demo.model.Service service(String name, int maxDailySlots) {
+        return serviceRepository.save(com.example.demo.model.Service.builder()
+                .serviceName(name)
+                .category("Maintenance")
+                .estimatedDuration(0.25)
+                .basePrice(BigDecimal.TEN)
+                .priority("MEDIUM")
+                .maxDailySlots(maxDailySlots)
+                .build());
+    }
+
+    private int booked(com.example.demo.model.Service service, LocalDate date) {
+        return jdbcTemplate.queryForObject(
+                "SELECT booked FROM service_capacity WHERE service_id = ? AND capacity_date = ?",
+                Integer.class, service.getId(), date);
+    }
+
+    private int hammer(IntFunction<AppointmentDTO> requests) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        for (int i = 0; i < THREADS; i++) {
+            AppointmentDTO dto = requests.apply(i);
+            pool.submit(() -> {
+                start.await();
+                try {
+                    appointmentService.createAppointment(dto, customer.getUsername());
+                    succeeded.incrementAndGet();
+                } catch (BadRequestException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+        assertEquals(THREADS, succeeded.get() + rejected.get());
+        return succeeded.get();
+    }
+
+    private static AppointmentDTO booking(LocalDateTime when, String timeSlot, String serviceType) {
+        return AppointmentDTO.builder()
+                .vehicleType("Car")
+                .vehicleBrand("Toyota")
+                .model("Corolla")
+                .registerNumber("CAB-1234")
+                .serviceType(serviceType)
+                .appointmentDate(when)
+                .timeSlot(timeSlot)
+                .build();
+    }
+}
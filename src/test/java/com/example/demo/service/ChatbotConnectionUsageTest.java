@@ -0,0 +1,190 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ChatRequest;
+import com.example.demo.dto.ChatResponse;
+import com.example.demo.model.ChatMessage;
+import com.example.demo.model.Role;
+import com.example.demo.model.User;
+import com.example.demo.repository.ChatMessageRepository;
+import com.example.demo.repository.CustomerQuestionRepository;
+import com.example.demo.repository.FAQRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.chatbot.ChatContextBuilder;
+import com.example.demo.service.chatbot.ChatResponseCache;
+import com.example.demo.service.chatbot.KnowledgeIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Many chats waiting on a slow model must not use up the connection pool. The pool is a
+ * transaction manager with two connections that fails when none frees up in time, like
+ * Hikari's connection timeout; the model call blocks until the test lets it go. Runs
+ * without a database or network.
+ */
+class ChatbotConnectionUsageTest {
+
+    private static final int POOL_SIZE = 2;
+    private static final int CHATS = 10;
+
+    private static final String COMPLETION = "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"Hi\"}}],"
+            + "\"usage\":{\"total_tokens\":12}}";
+
+    private final Semaphore connections = new Semaphore(POOL_SIZE);
+    private final CountDownLatch waitingOnModel = new CountDownLatch(CHATS);
+    private final CountDownLatch modelReplies = new CountDownLatch(1);
+
+    private ChatMessageRepository chatMessageRepository;
+    private TransactionTemplate transactionTemplate;
+    private ChatbotService chatbotService;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        chatMessageRepository = mock(ChatMessageRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        User customer = User.builder().id(1L).username("customer").email("customer@example.com").role(Role.CUSTOMER).build();
+        when(userRepository.findByUsername("customer")).thenReturn(Optional.of(customer));
+        when(chatMessageRepository.findRecentTurns(any(), any(), any())).thenReturn(List.of());
+
+        ChatContextBuilder contextBuilder = new ChatContextBuilder(chatMessageRepository);
+        ReflectionTestUtils.setField(contextBuilder, "maxTurns", 10);
+        ReflectionTestUtils.setField(contextBuilder, "tokenBudget", 3000);
+
+        RestTemplate restTemplate = new RestTemplate((uri, method) -> new MockClientHttpRequest(method, uri) {
+            @Override
+            protected ClientHttpResponse executeInternal() throws IOException {
+                waitingOnModel.countDown();
+                try {
+                    modelReplies.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+                MockClientHttpResponse response =
+                        new MockClientHttpResponse(COMPLETION.getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+                response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                return response;
+            }
+        });
+
+        transactionTemplate = new TransactionTemplate(new PooledTransactionManager());
+        chatbotService = new ChatbotService(chatMessageRepository, userRepository, contextBuilder,
+                new ChatResponseCache(), new KnowledgeIndex(mock(FAQRepository.class), mock(CustomerQuestionRepository.class)),
+                restTemplate, transactionTemplate, HttpClient.newHttpClient(), new ObjectMapper(),
+                new ThreadPoolTaskExecutor());
+        ReflectionTestUtils.setField(chatbotService, "apiKey", "test-key");
+        ReflectionTestUtils.setField(chatbotService, "apiUrl", "http://openrouter.test/api/v1/chat/completions");
+        ReflectionTestUtils.setField(chatbotService, "model", "test-model");
+        ReflectionTestUtils.setField(chatbotService, "testMode", false);
+
+        executor = Executors.newFixedThreadPool(CHATS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        modelReplies.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void chatsWaitingOnTheModelHoldNoConnection() throws Exception {
+        List<Future<ChatResponse>> chats = new ArrayList<>();
+        for (int i = 0; i < CHATS; i++) {
+            String sessionId = "session-" + i;
+            chats.add(executor.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken("customer", null, List.of()));
+                try {
+                    return chatbotService.sendMessage(new ChatRequest("What are your hours?", sessionId));
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+
+        // More chats than connections got past the read step and are all waiting on the model
+        assertTrue(waitingOnModel.await(5, TimeUnit.SECONDS), "Chats should reach the model call");
+        assertEquals(POOL_SIZE, connections.availablePermits(), "No connection should be held during the model call");
+
+        // Any other request still gets a connection right away
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+        });
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100), "Unrelated work should not wait");
+
+        modelReplies.countDown();
+        for (Future<ChatResponse> chat : chats) {
+            ChatResponse response = chat.get(5, TimeUnit.SECONDS);
+            assertEquals("Hi", response.getResponse());
+            assertEquals(12, response.getTokensUsed());
+        }
+        verify(chatMessageRepository, times(CHATS)).save(any(ChatMessage.class));
+        assertEquals(POOL_SIZE, connections.availablePermits());
+    }
+
+    // One permit per open transaction, as a connection pool would hand out
+    private class PooledTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            try {
+                if (!connections.tryAcquire(1, TimeUnit.SECONDS)) {
+                    throw new CannotCreateTransactionException("Connection is not available, request timed out");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CannotCreateTransactionException("Interrupted waiting for a connection", e);
+            }
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            connections.release();
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            connections.release();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.AppointmentRepository;
+import com.example.demo.repository.EmployeeServiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks that auto-assignment always picks a least-loaded qualified employee and that
+ * loads stay consistent as appointments come and go. Runs without a database.
+ */
+class EmployeeLoadBalancerTest {
+
+    private static final int EMPLOYEES = 500;
+    private static final int SERVICES = 50;
+    private static final int SKILLS_PER_EMPLOYEE = 3;
+
+    private EmployeeLoadBalancer balancer;
+    private Map<Long, Set<Long>> skills;
+
+    @BeforeEach
+    void setUp() {
+        balancer = new EmployeeLoadBalancer(mock(EmployeeServiceRepository.class), mock(AppointmentRepository.class));
+
+        Random random = new Random(42);
+        skills = new HashMap<>();
+        for (long employeeId = 1; employeeId <= EMPLOYEES; employeeId++) {
+            Set<Long> serviceIds = new HashSet<>();
+            while (serviceIds.size() < SKILLS_PER_EMPLOYEE) {
+                serviceIds.add(1L + random.nextInt(SERVICES));
+            }
+            skills.put(employeeId, serviceIds);
+        }
+        balancer.load(skills, Map.of());
+    }
+
+    @Test
+    void alwaysPicksALeastLoadedQualifiedEmployee() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2_000; i++) {
+            long serviceId = 1L + random.nextInt(SERVICES);
+            Map<Long, Integer> before = balancer.getLoads();
+            int minLoad = skills.entrySet().stream()
+                    .filter(entry -> entry.getValue().contains(serviceId))
+                    .mapToInt(entry -> before.get(entry.getKey()))
+                    .min()
+                    .orElse(-1);
+
+            Long picked = balancer.takeLeastLoaded(serviceId);
+            if (minLoad < 0) {
+                assertNull(picked);
+                continue;
+            }
+            assertNotNull(picked);
+            assertTrue(skills.get(picked).contains(serviceId));
+            assertEquals(minLoad, before.get(picked));
+            assertEquals(minLoad + 1, balancer.getLoads().get(picked));
+
+            // Complete some appointments so loads also go down
+            if (random.nextInt(3) == 0) {
+                balancer.adjust(1L + random.nextInt(EMPLOYEES), -1);
+            }
+        }
+    }
+
+    @Test
+    void removedSkillsAndEmployeesAreNotPicked() {
+        long serviceId = skills.get(1L).iterator().next();
+        balancer.removeEmployee(1L);
+        for (int i = 0; i < 100; i++) {
+            Long picked = balancer.takeLeastLoaded(serviceId);
+            assertTrue(picked == null || picked != 1L);
+        }
+
+        balancer.load(Map.of(10L, Set.of(99L)), Map.of());
+        balancer.removeSkill(10L, 99L);
+        assertNull(balancer.takeLeastLoaded(99L));
+    }
+
+    @Test
+    void loadsMatchAppointmentsInProgress() {
+        Random random = new Random(1);
+        Deque<Long> active = new ArrayDeque<>();
+        for (int i = 0; i < 20_000; i++) {
+            Long employeeId = balancer.takeLeastLoaded(1L + random.nextInt(SERVICES));
+            if (employeeId != null) {
+                active.add(employeeId);
+            }
+            // Keep roughly 1,000 appointments in progress
+            if (active.size() > 1_000) {
+                balancer.adjust(active.poll(), -1);
+            }
+        }
+
+        Map<Long, Integer> expected = new HashMap<>();
+        active.forEach(employeeId -> expected.merge(employeeId, 1, Integer::sum));
+        balancer.getLoads().forEach((employeeId, load) ->
+                assertEquals(expected.getOrDefault(employeeId, 0), load, "Load of employee " + employeeId));
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.demo.service.chatbot;
+
+import com.example.demo.dto.ChatResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Feeds OpenRouter stream lines to the relay and checks the events the browser gets and
+ * what is handed on as the finished reply. Runs without a server or network.
+ */
+class ChatStreamRelayTest {
+
+    private record Event(String name, Object data) {
+    }
+
+    // Keeps what would have been written to the browser
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<Event> events = new ArrayList<>();
+        private boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            List<ResponseBodyEmitter.DataWithMediaType> parts = new ArrayList<>(builder.build());
+            String header = (String) parts.get(0).getData();
+            String name = header.substring("event:".length(), header.indexOf('\n'));
+            events.add(new Event(name, parts.size() > 1 ? parts.get(1).getData() : null));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private RecordingEmitter emitter;
+    private List<ChatStreamRelay.Reply> replies;
+    private Flow.Subscription subscription;
+    private ChatStreamRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        emitter = new RecordingEmitter();
+        replies = new ArrayList<>();
+        subscription = mock(Flow.Subscription.class);
+        relay = new ChatStreamRelay(emitter, objectMapper, "session-1",
+                replies::add);
+        relay.onSubscribe(subscription);
+    }
+
+    @Test
+    void deltasGoOutAsTokensAndDoneCarriesTheWholeReply() {
+        relay.onNext(": OPENROUTER PROCESSING");
+        relay.onNext("");
+        relay.onNext(delta("Your next "));
+        relay.onNext(delta("oil change"));
+        relay.onNext("data: {\"choices\":[],\"usage\":{\"total_tokens\":42}}");
+        relay.onNext("data: [DONE]");
+        relay.onComplete();
+
+        assertEquals(List.of("session", "token", "token", "done"), names());
+        assertEquals("session-1", emitter.events.get(0).data());
+        assertEquals("Your next ", emitter.events.get(1).data());
+        assertEquals("oil change", emitter.events.get(2).data());
+        ChatResponse done = (ChatResponse) emitter.events.get(3).data();
+        assertEquals("Your next oil change", done.getResponse());
+        assertEquals(42, done.getTokensUsed());
+        assertTrue(emitter.completed);
+        assertEquals(List.of(new ChatStreamRelay.Reply("Your next oil change", 42, true)), replies);
+    }
+
+    @Test
+    void unreadableChunkIsSkipped() {
+        relay.onNext("data: {not json");
+        relay.onNext(delta("Hello"));
+        relay.onNext("data: [DONE]");
+
+        assertEquals(List.of("session", "token", "done"), names());
+        assertEquals(List.of(new ChatStreamRelay.Reply("Hello", null, true)), replies);
+    }
+
+    @Test
+    void errorChunkEndsTheStreamWithoutAReply() {
+        relay.onNext(delta("Half an ans"));
+        relay.onNext("data: {\"error\":{\"message\":\"Rate limited\"}}");
+        relay.onNext(delta("wer"));
+        relay.onComplete();
+
+        assertEquals(List.of("session", "token", "error"), names());
+        assertEquals("Failed to get response from chatbot: Rate limited", emitter.events.get(2).data());
+        assertTrue(emitter.completed);
+        verify(subscription).cancel();
+        assertTrue(replies.isEmpty());
+    }
+
+    @Test
+    void upstreamClosingWithoutDoneHandsOnAnIncompleteReply() {
+        relay.onNext(delta("Brakes are "));
+        relay.onComplete();
+
+        assertEquals(List.of("session", "token", "done"), names());
+        assertEquals(List.of(new ChatStreamRelay.Reply("Brakes are ", null, false)), replies);
+    }
+
+    @Test
+    void replyStoppedAtTheTokenLimitIsIncomplete() {
+        relay.onNext(delta("First, lift the"));
+        relay.onNext("data: {\"choices\":[{\"delta\":{},\"finish_reason\":\"length\"}]}");
+        relay.onNext("data: [DONE]");
+
+        assertEquals(List.of("session", "token", "done"), names());
+        assertEquals(List.of(new ChatStreamRelay.Reply("First, lift the", null, false)), replies);
+    }
+
+    @Test
+    void readyMadeReplyIsComplete() {
+        relay.complete("We are open 8 AM to 6 PM.", 0);
+
+        assertEquals(List.of("session", "token", "done"), names());
+        assertEquals(List.of(new ChatStreamRelay.Reply("We are open 8 AM to 6 PM.", 0, true)), replies);
+    }
+
+    @Test
+    void upstreamClosingWithNothingWrittenIsAnError() {
+        relay.onComplete();
+
+        assertEquals(List.of("session", "error"), names());
+        assertTrue(emitter.completed);
+        assertTrue(replies.isEmpty());
+    }
+
+    @Test
+    void failedConnectionIsReportedOnce() {
+        relay.onError(new IOException("Connection reset"));
+        relay.fail("Connection to AI service timed out. Please check your internet connection.");
+
+        assertEquals(List.of("session", "error"), names());
+        assertEquals("Connection to AI service failed. Please try again.", emitter.events.get(1).data());
+        verify(subscription).cancel();
+        assertTrue(replies.isEmpty());
+    }
+
+    @Test
+    void linesAfterDoneAreIgnored() {
+        relay.onNext(delta("Done"));
+        relay.onNext("data: [DONE]");
+        relay.onNext(delta(" and more"));
+        relay.onComplete();
+
+        assertEquals(List.of("session", "token", "done"), names());
+        assertEquals(1, replies.size());
+        verify(subscription, never()).cancel();
+    }
+
+    private List<String> names() {
+        return emitter.events.stream().map(Event::name).toList();
+    }
+
+    private String delta(String content) {
+        try {
+            return "data: {\"choices\":[{\"delta\":{\"content\":" + objectMapper.writeValueAsString(content) + "}}]}";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
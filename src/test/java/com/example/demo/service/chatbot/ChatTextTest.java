@@ -0,0 +1,52 @@
+package com.example.demo.service.chatbot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Search terms and the cache key form of chat text.
+ */
+class ChatTextTest {
+
+    @Test
+    void endingsAreStrippedToOneStem() {
+        assertEquals("book", ChatText.stem("booking"));
+        assertEquals("book", ChatText.stem("booked"));
+        assertEquals("book", ChatText.stem("books"));
+        assertEquals("stop", ChatText.stem("stopped"));
+        assertEquals("fill", ChatText.stem("filling"));
+        assertEquals("battery", ChatText.stem("batteries"));
+        assertEquals("wash", ChatText.stem("washes"));
+        assertEquals("service", ChatText.stem("services"));
+    }
+
+    @Test
+    void wordsThatOnlyLookInflectedAreKept() {
+        assertEquals("glass", ChatText.stem("glass"));
+        assertEquals("status", ChatText.stem("status"));
+        assertEquals("bus", ChatText.stem("bus"));
+    }
+
+    @Test
+    void searchTermsKeepOnlyTheTopic() {
+        assertEquals(List.of("cancel", "book"), ChatText.terms("How do I cancel my booking?"));
+        assertEquals(List.of("oil", "change"), ChatText.terms("OIL-change!!"));
+        assertEquals(List.of(), ChatText.terms(null));
+    }
+
+    @Test
+    void normalizedFormDropsOnlyFiller() {
+        assertEquals("how do i cancel my book", ChatText.normalize("Hi, how do I cancel my booking? Thanks"));
+        assertEquals(ChatText.normalize("how do I cancel my booking"), ChatText.normalize("Hello! How do I cancel my booking, please"));
+    }
+
+    @Test
+    void questionWordsKeepDifferentQuestionsApart() {
+        assertNotEquals(ChatText.normalize("How do I cancel my booking?"), ChatText.normalize("When can I cancel my booking?"));
+        assertNotEquals(ChatText.normalize("Where is my car?"), ChatText.normalize("Who is fixing my car?"));
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.demo.service.chatbot;
+
+import com.example.demo.model.CustomerQuestion;
+import com.example.demo.model.FAQ;
+import com.example.demo.repository.CustomerQuestionRepository;
+import com.example.demo.repository.FAQRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * BM25 ranking and confidence of the knowledge index, which documents it takes in, and
+ * that edits applied one by one leave it the same as a reconcile from the database.
+ * Runs without a database.
+ */
+class KnowledgeIndexTest {
+
+    private static final String[] QUERIES = {
+            "how much is an oil change", "oil change", "can I pay by card", "cancel booking",
+            "opening hours saturday", "wheel alignment"};
+
+    private FAQRepository faqRepository;
+    private CustomerQuestionRepository customerQuestionRepository;
+    private KnowledgeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        faqRepository = mock(FAQRepository.class);
+        customerQuestionRepository = mock(CustomerQuestionRepository.class);
+        index = index();
+    }
+
+    @Test
+    void documentSharingMostQueryTermsRanksFirst() {
+        index.faqChanged(hours());
+        index.faqChanged(cancel());
+        index.faqChanged(oilChange());
+        index.questionChanged(cardPayment(true));
+
+        List<KnowledgeIndex.Hit> hits = index.search("how much is an oil change", 3);
+
+        assertEquals(List.of("faq:3", "question:10"), hits.stream().map(KnowledgeIndex.Hit::id).toList());
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+        assertEquals("faq:1", index.search("opening hours saturday", 3).get(0).id());
+    }
+
+    @Test
+    void confidenceIsOneOnlyWhenTheQuestionSaysTheSame() {
+        index.faqChanged(oilChange());
+        index.faqChanged(cancel());
+
+        assertEquals(1.0, index.search("How much does an oil change cost?", 1).get(0).confidence(), 1e-9);
+        assertEquals(1.0, index.search("cancel booking", 1).get(0).confidence(), 1e-9);
+        double partial = index.search("oil change", 1).get(0).confidence();
+        assertTrue(partial > 0 && partial < 1, "Confidence of a partial match was " + partial);
+        assertTrue(index.search("wheel alignment", 3).isEmpty());
+    }
+
+    @Test
+    void onlyFaqHitsCountAsFaqs() {
+        index.faqChanged(oilChange());
+        index.questionChanged(cardPayment(true));
+
+        List<KnowledgeIndex.Hit> hits = index.search("oil change", 3);
+
+        assertTrue(hits.stream().filter(hit -> hit.id().startsWith("faq:")).allMatch(KnowledgeIndex.Hit::isFaq));
+        assertFalse(hits.stream().filter(hit -> hit.id().startsWith("question:")).anyMatch(KnowledgeIndex.Hit::isFaq));
+    }
+
+    @Test
+    void unpublishedAnswersAndInactiveFaqsAreNotIndexed() {
+        FAQ retired = hours();
+        retired.setIsActive(false);
+        index.faqChanged(retired);
+        index.questionChanged(cardPayment(false));
+
+        assertTrue(index.search("opening hours", 3).isEmpty());
+        assertTrue(index.search("pay by card", 3).isEmpty());
+
+        // Publishing indexes it, withdrawing it removes it again
+        index.questionChanged(cardPayment(true));
+        assertEquals("question:10", index.search("pay by card", 3).get(0).id());
+        index.questionChanged(cardPayment(false));
+        assertTrue(index.search("pay by card", 3).isEmpty());
+    }
+
+    @Test
+    void versionChangesOnlyWithIndexedText() {
+        index.faqChanged(oilChange());
+        long version = index.getVersion();
+
+        index.faqChanged(oilChange());
+        assertEquals(version, index.getVersion());
+
+        FAQ edited = oilChange();
+        edited.setAnswer("An oil change starts at 5000 rupees, filter included.");
+        index.faqChanged(edited);
+        assertTrue(index.getVersion() > version);
+    }
+
+    @Test
+    void incrementalEditsMatchAReconcile() {
+        FAQ hours = hours();
+        FAQ cancel = cancel();
+        FAQ oilChange = oilChange();
+        index.faqChanged(hours);
+        index.faqChanged(cancel);
+        index.faqChanged(oilChange);
+        index.questionChanged(cardPayment(true));
+        index.questionChanged(alignment());
+
+        // Edit, retire, delete and publish in between
+        oilChange.setAnswer("An oil change starts at 5000 rupees, filter included.");
+        index.faqChanged(oilChange);
+        cancel.setIsActive(false);
+        index.faqChanged(cancel);
+        index.questionDeleted(10L);
+        CustomerQuestion alignment = alignment();
+        alignment.setIsPublished(true);
+        index.questionChanged(alignment);
+
+        when(faqRepository.findByIsActiveTrueOrderByCreatedAtDesc()).thenReturn(List.of(oilChange, hours));
+        when(customerQuestionRepository.findByAnswerIsNotNullAndIsPublishedTrue()).thenReturn(List.of(alignment));
+        KnowledgeIndex reconciled = index();
+        reconciled.reconcile();
+
+        for (String query : QUERIES) {
+            List<KnowledgeIndex.Hit> expected = reconciled.search(query, 5);
+            List<KnowledgeIndex.Hit> actual = index.search(query, 5);
+            assertEquals(expected.stream().map(KnowledgeIndex.Hit::id).toList(),
+                    actual.stream().map(KnowledgeIndex.Hit::id).toList(), query);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).score(), actual.get(i).score(), 1e-9);
+                assertEquals(expected.get(i).confidence(), actual.get(i).confidence(), 1e-9);
+            }
+        }
+
+        // And a reconcile of the edited index changes nothing
+        long version = index.getVersion();
+        index.reconcile();
+        assertEquals(version, index.getVersion());
+    }
+
+    private KnowledgeIndex index() {
+        KnowledgeIndex knowledgeIndex = new KnowledgeIndex(faqRepository, customerQuestionRepository);
+        ReflectionTestUtils.setField(knowledgeIndex, "enabled", true);
+        return knowledgeIndex;
+    }
+
+    private static FAQ hours() {
+        return faq(1L, "What are your opening hours?", "We are open Monday to Saturday, 8 AM to 6 PM.");
+    }
+
+    private static FAQ cancel() {
+        return faq(2L, "How do I cancel a booking?", "Open My Appointments and press Cancel on the booking.");
+    }
+
+    private static FAQ oilChange() {
+        return faq(3L, "How much does an oil change cost?", "An oil change starts at 4500 rupees, filter included.");
+    }
+
+    private static CustomerQuestion cardPayment(boolean published) {
+        return question(10L, "Can I pay for an oil change by card?", "Yes, cards are accepted at the counter.", published);
+    }
+
+    private static CustomerQuestion alignment() {
+        return question(11L, "Do you do wheel alignment?", "Yes, wheel alignment takes about an hour.", false);
+    }
+
+    private static FAQ faq(Long id, String question, String answer) {
+        FAQ faq = new FAQ();
+        faq.setId(id);
+        faq.setQuestion(question);
+        faq.setAnswer(answer);
+        faq.setIsActive(true);
+        return faq;
+    }
+
+    private static CustomerQuestion question(Long id, String question, String answer, boolean published) {
+        CustomerQuestion customerQuestion = new CustomerQuestion();
+        customerQuestion.setId(id);
+        customerQuestion.setQuestion(question);
+        customerQuestion.setAnswer(answer);
+        customerQuestion.setIsPublished(published);
+        return customerQuestion;
+    }
+}
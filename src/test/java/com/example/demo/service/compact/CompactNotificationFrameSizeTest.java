@@ -0,0 +1,132 @@
+package com.example.demo.service.compact;
+
+import com.example.demo.dto.WebSocketNotificationMessage;
+import com.example.demo.model.NotificationType;
+import com.example.demo.service.relay.MessageRelay;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.sockjs.frame.Jackson2SockJsMessageCodec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compares the bytes a burst of admin notifications takes on the wire on the current path
+ * (one JSON STOMP frame per message, wrapped by SockJS) and on the compact endpoint (CBOR
+ * arrays, one frame per linger window). Deflate uses one stream per connection with a flush
+ * per frame, like permessage-deflate. Only frame counts and sizes are checked, not encoding
+ * time. Runs without a server.
+ */
+class CompactNotificationFrameSizeTest {
+
+    private static final int MESSAGES = 500;
+    private static final int MESSAGES_PER_FRAME = 20;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final StompEncoder stompEncoder = new StompEncoder();
+    private final Jackson2SockJsMessageCodec sockJsCodec = new Jackson2SockJsMessageCodec();
+
+    private CompactNotificationPublisher publisher;
+    private List<WebSocketNotificationMessage> burst;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new CompactNotificationPublisher(objectMapper, Jackson2ObjectMapperBuilder.json(),
+                mock(MessageRelay.class));
+
+        Random random = new Random(3);
+        String[] brands = {"Toyota", "Honda", "Nissan", "Suzuki", "Mazda"};
+        burst = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            String vehicle = brands[random.nextInt(brands.length)] + " " + (2010 + random.nextInt(15));
+            burst.add(WebSocketNotificationMessage.builder()
+                    .notificationId(10_000L + i)
+                    .title("Appointment Confirmed")
+                    .message("Appointment for " + vehicle + " was confirmed for slot " + (8 + i % 10) + ":00")
+                    .type(NotificationType.APPOINTMENT_CONFIRMED)
+                    .appointmentId(5_000L + random.nextInt(1_000))
+                    .timestamp(LocalDateTime.of(2026, 10, 16, 9, 0).plusSeconds(i))
+                    .sequence(1_792_000_000_000_000L + i)
+                    .build());
+        }
+    }
+
+    @Test
+    void compactFramesAreSmallerThanStompOverSockJs() throws Exception {
+        Result current = measure(currentFrames());
+        Result compact = measure(compactFrames());
+
+        assertEquals(MESSAGES / MESSAGES_PER_FRAME, compact.frames);
+        assertTrue(compact.raw < current.raw / 2, "Compact frames should be less than half the size");
+        assertTrue(compact.deflated < current.deflated, "Compact frames should stay smaller once deflated");
+    }
+
+    private record Result(int frames, long raw, long deflated) {
+    }
+
+    // What the simple broker sends per message: STOMP MESSAGE frame, then the SockJS "a[...]" array
+    private List<byte[]> currentFrames() throws Exception {
+        List<byte[]> frames = new ArrayList<>();
+        for (WebSocketNotificationMessage message : burst) {
+            StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+            headers.setDestination("/topic/notifications/admin");
+            headers.setSubscriptionId("sub-0");
+            headers.setMessageId("3a1f0b6e-" + message.getNotificationId());
+            headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            byte[] body = objectMapper.writeValueAsBytes(message);
+            headers.setContentLength(body.length);
+            byte[] stomp = stompEncoder.encode(MessageBuilder.createMessage(body, headers.getMessageHeaders()));
+            String sockJs = sockJsCodec.encode(new String(stomp, StandardCharsets.UTF_8));
+            frames.add(sockJs.getBytes(StandardCharsets.UTF_8));
+        }
+        return frames;
+    }
+
+    private List<byte[]> compactFrames() throws Exception {
+        List<byte[]> frames = new ArrayList<>();
+        for (int from = 0; from < burst.size(); from += MESSAGES_PER_FRAME) {
+            List<WebSocketNotificationMessage> batch = burst.subList(from, Math.min(burst.size(), from + MESSAGES_PER_FRAME));
+            WebSocketMessage<?> frame = publisher.encode(CompactNotificationPublisher.Format.CBOR, batch);
+            frames.add(((ByteBuffer) frame.getPayload()).array());
+        }
+        return frames;
+    }
+
+    private static Result measure(List<byte[]> frames) {
+        long raw = frames.stream().mapToLong(frame -> frame.length).sum();
+        return new Result(frames.size(), raw, deflate(frames));
+    }
+
+    private static long deflate(List<byte[]> frames) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        for (byte[] frame : frames) {
+            deflater.setInput(frame);
+            int written;
+            do {
+                written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                total += written;
+            } while (written == buffer.length);
+        }
+        deflater.end();
+        return total;
+    }
+}
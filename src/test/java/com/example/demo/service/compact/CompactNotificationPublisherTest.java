@@ -0,0 +1,166 @@
+package com.example.demo.service.compact;
+
+import com.example.demo.dto.WebSocketNotificationMessage;
+import com.example.demo.model.NotificationType;
+import com.example.demo.service.relay.MessageRelay;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * What sessions on the compact endpoint receive: one frame per linger window, encoded once
+ * per format, only while registered, and a slow session is closed instead of buffered.
+ */
+class CompactNotificationPublisherTest {
+
+    private static final String ADMIN = "/topic/notifications/admin";
+    private static final long LINGER_MS = 200;
+    private static final long WAIT_MS = 5_000;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private CompactNotificationPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new CompactNotificationPublisher(objectMapper, Jackson2ObjectMapperBuilder.json(),
+                mock(MessageRelay.class));
+        ReflectionTestUtils.setField(publisher, "lingerMs", LINGER_MS);
+        ReflectionTestUtils.setField(publisher, "poolSize", 2);
+        ReflectionTestUtils.setField(publisher, "sendTimeLimitMs", 10_000);
+        ReflectionTestUtils.setField(publisher, "bufferSizeLimit", 1);
+        publisher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void messagesWithinTheLingerWindowGoOutAsOneFrame() throws Exception {
+        WebSocketSession session = session("json");
+        publisher.register(session, CompactNotificationPublisher.Format.JSON, List.of(ADMIN));
+
+        publisher.publish(ADMIN, List.of(message(1)));
+        publisher.publish(ADMIN, List.of(message(2), message(3)));
+
+        ArgumentCaptor<WebSocketMessage> frame = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, timeout(WAIT_MS)).sendMessage(frame.capture());
+        String payload = ((TextMessage) frame.getValue()).getPayload();
+        assertEquals(3, objectMapper.readTree(payload).size());
+
+        // No second frame follows for the same burst
+        Thread.sleep(LINGER_MS * 2);
+        verify(session).sendMessage(any());
+    }
+
+    @Test
+    void sessionsOfOneFormatShareTheEncodedFrame() throws Exception {
+        WebSocketSession first = session("cbor-1");
+        WebSocketSession second = session("cbor-2");
+        WebSocketSession json = session("json");
+        publisher.register(first, CompactNotificationPublisher.Format.CBOR, List.of(ADMIN));
+        publisher.register(second, CompactNotificationPublisher.Format.CBOR, List.of(ADMIN));
+        publisher.register(json, CompactNotificationPublisher.Format.JSON, List.of(ADMIN));
+
+        publisher.publish(ADMIN, List.of(message(1), message(2)));
+
+        ArgumentCaptor<WebSocketMessage> firstFrame = ArgumentCaptor.forClass(WebSocketMessage.class);
+        ArgumentCaptor<WebSocketMessage> secondFrame = ArgumentCaptor.forClass(WebSocketMessage.class);
+        ArgumentCaptor<WebSocketMessage> jsonFrame = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(first, timeout(WAIT_MS)).sendMessage(firstFrame.capture());
+        verify(second, timeout(WAIT_MS)).sendMessage(secondFrame.capture());
+        verify(json, timeout(WAIT_MS)).sendMessage(jsonFrame.capture());
+        assertTrue(firstFrame.getValue() instanceof BinaryMessage);
+        assertSame(firstFrame.getValue(), secondFrame.getValue());
+        assertTrue(jsonFrame.getValue() instanceof TextMessage);
+    }
+
+    @Test
+    void unregisteredSessionsReceiveNothing() throws Exception {
+        WebSocketSession stays = session("stays");
+        WebSocketSession leaves = session("leaves");
+        publisher.register(stays, CompactNotificationPublisher.Format.JSON, List.of(ADMIN));
+        publisher.register(leaves, CompactNotificationPublisher.Format.JSON, List.of(ADMIN));
+        publisher.unregister(leaves);
+
+        publisher.publish(ADMIN, List.of(message(1)));
+
+        verify(stays, timeout(WAIT_MS)).sendMessage(any());
+        verify(leaves, never()).sendMessage(any());
+        assertEquals(1, publisher.getSessionCount());
+
+        // Once the last session is gone, publishing does not schedule anything
+        publisher.unregister(stays);
+        publisher.publish(ADMIN, List.of(message(2)));
+        Thread.sleep(LINGER_MS * 2);
+        verify(stays).sendMessage(any());
+    }
+
+    @Test
+    void sessionThatFallsBehindIsClosedAndDropped() throws Exception {
+        String other = "/topic/notifications/user.7";
+        WebSocketSession slow = session("slow");
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await(WAIT_MS, TimeUnit.MILLISECONDS);
+            return null;
+        }).when(slow).sendMessage(any());
+        publisher.register(slow, CompactNotificationPublisher.Format.JSON, List.of(ADMIN, other));
+
+        // The first frame is stuck on the wire; the next one exceeds the buffer limit
+        publisher.publish(ADMIN, List.of(message(1)));
+        assertTrue(sending.await(WAIT_MS, TimeUnit.MILLISECONDS));
+        publisher.publish(other, List.of(message(2)));
+
+        verify(slow, timeout(WAIT_MS)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(0, publisher.getSessionCount());
+        release.countDown();
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    private static WebSocketNotificationMessage message(long id) {
+        return WebSocketNotificationMessage.builder()
+                .notificationId(id)
+                .title("Appointment Confirmed")
+                .message("Appointment " + id + " was confirmed")
+                .type(NotificationType.APPOINTMENT_CONFIRMED)
+                .timestamp(LocalDateTime.of(2026, 10, 16, 9, 0))
+                .sequence(id)
+                .build();
+    }
+}